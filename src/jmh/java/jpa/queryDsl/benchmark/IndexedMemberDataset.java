@@ -0,0 +1,20 @@
+package jpa.queryDsl.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// MemberDataset과 같은 데이터 + 메모리 검색 인덱스 사용 (별도 H2 DB)
+@State(Scope.Benchmark)
+public class IndexedMemberDataset extends MemberDataset {
+
+    @Override
+    protected Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>(super.properties());
+        properties.put("spring.datasource.url", "jdbc:h2:mem:benchIndexed;DB_CLOSE_DELAY=-1");
+        properties.put("member.search.index.enabled", "true");
+        return properties;
+    }
+}
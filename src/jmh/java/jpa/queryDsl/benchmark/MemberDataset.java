@@ -0,0 +1,89 @@
+package jpa.queryDsl.benchmark;
+
+import jpa.queryDsl.QueryDslApplication;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.service.MemberImportService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 + 인메모리 H2 데이터셋
+ * 회원 i : username = "member" + i, age = i % 100, team = "team" + (i % teams)
+ * 로컬 프로파일(InitMember), SQL 로그, SQL 추적(SqlTracer, p6spy)은 끄고 띄운다.
+ */
+@State(Scope.Benchmark)
+public class MemberDataset {
+
+    @Param({"10000"})
+    public int members;
+
+    @Param({"10"})
+    public int teams;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // application.yml보다 우선하도록 커맨드라인 인자로 넘긴다.
+        String[] args = properties().entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        context = new SpringApplicationBuilder(QueryDslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+
+        List<Team> savedTeams = saveTeams();
+        context.getBean(MemberImportService.class).importMembers(IntStream.range(0, members)
+                .mapToObj(i -> new Member("member" + i, i % 100, savedTeams.get(i % teams))));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    protected Map<String, Object> properties() {
+        return Map.of(
+                "spring.profiles.active", "bench",
+                "spring.datasource.url", "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.format_sql", "false",
+                "spring.jpa.properties.hibernate.use_sql_comments", "false",
+                "logging.level.org.hibernate.SQL", "warn",
+                "member.sql-trace.enabled", "false",
+                "decorator.datasource.enabled", "false");
+    }
+
+    private List<Team> saveTeams() {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        return transactionTemplate.execute(status -> {
+            List<Team> result = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                result.add(team);
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package jpa.queryDsl.benchmark;
+
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.MemberJpaRepository;
+import jpa.queryDsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static jpa.queryDsl.entity.QMember.*;
+
+/**
+ * 레포지토리 조회 경로 벤치마크
+ * Throughput(ops/ms)과 SampleTime(p50 ~ p99.99 지연 시간)을 함께 측정하고, 할당량은 -prof gc(build.gradle 설정)로 본다.
+ * 실행 : ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private MemberJpaRepository memberJpaRepository;
+    private MemberRepository memberRepository;
+
+    // 팀 하나 + 나이 범위 : 전체의 약 1/teams * 1/5
+    private final SearchCond cond = new SearchCond(null, "team1", 20, 39);
+    private PageRequest deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataset dataset) {
+        memberJpaRepository = dataset.getBean(MemberJpaRepository.class);
+        memberRepository = dataset.getBean(MemberRepository.class);
+        // 조건 없는 검색의 마지막 쪽 페이지 -> offset이 회원 수에 비례
+        deepPage = PageRequest.of(Math.max(0, dataset.members / PAGE_SIZE - 2), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(cond);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByWhere() {
+        return memberJpaRepository.searchByWhere(cond);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberRepository.search(cond);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplexShallow() {
+        return memberRepository.searchPageComplex(cond, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplexDeep() {
+        return memberRepository.searchPageComplex(new SearchCond(null, null, null, null), deepPage);
+    }
+
+    @Benchmark
+    public Iterable<Member> findAllPredicate() {
+        return memberRepository.findAll(member.team.name.eq("team1").and(member.age.between(20, 39)));
+    }
+}
@@ -0,0 +1,80 @@
+package jpa.queryDsl.benchmark;
+
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.repository.MemberRepository;
+import jpa.queryDsl.repository.MemberSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepository.search : SQL vs 메모리 인덱스 (MemberSearchIndex)
+ * - sql* : MemberDataset (인덱스 끔), index* : IndexedMemberDataset (같은 데이터, 인덱스 켬)
+ * - 팀 + 나이 범위(결과 약 1/teams * 1/5), 이름 하나(결과 1건)
+ * 실행 : ./gradlew jmh -PjmhIncludes=MemberSearchIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberSearchIndexBenchmark {
+
+    private final SearchCond teamAndAge = new SearchCond(null, "team1", 20, 39);
+    private final SearchCond username = new SearchCond("member42", null, null, null);
+
+    @State(Scope.Benchmark)
+    public static class SqlPath {
+        private MemberRepository memberRepository;
+
+        @Setup(Level.Trial)
+        public void setUp(MemberDataset dataset) {
+            memberRepository = dataset.getBean(MemberRepository.class);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class IndexPath {
+        private MemberRepository memberRepository;
+        private MemberSearchIndex memberSearchIndex;
+
+        @Setup(Level.Trial)
+        public void setUp(IndexedMemberDataset dataset) {
+            memberRepository = dataset.getBean(MemberRepository.class);
+            memberSearchIndex = dataset.getBean(MemberSearchIndex.class);
+        }
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> sqlTeamAndAge(SqlPath path) {
+        return path.memberRepository.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> indexTeamAndAge(IndexPath path) {
+        return path.memberRepository.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> sqlUsername(SqlPath path) {
+        return path.memberRepository.search(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> indexUsername(IndexPath path) {
+        return path.memberRepository.search(username);
+    }
+
+    // 인덱스를 직접 (레포지토리 프록시 제외)
+    @Benchmark
+    public List<MemberTeamDto> indexDirect(IndexPath path) {
+        return path.memberSearchIndex.search(teamAndAge);
+    }
+}
@@ -0,0 +1,21 @@
+package jpa.queryDsl.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// MemberDataset과 같은 데이터 + p6spy (별도 H2 DB), 문장 로그는 끈다.
+@State(Scope.Benchmark)
+public class P6spyMemberDataset extends MemberDataset {
+
+    @Override
+    protected Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>(super.properties());
+        properties.put("spring.datasource.url", "jdbc:h2:mem:benchP6spy;DB_CLOSE_DELAY=-1");
+        properties.put("decorator.datasource.enabled", "true");
+        properties.put("decorator.datasource.p6spy.enable-logging", "false");
+        return properties;
+    }
+}
@@ -0,0 +1,104 @@
+package jpa.queryDsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.dto.MemberTeamColumns;
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.QMemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.repository.MemberSearchJdbcRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static jpa.queryDsl.entity.QTeam.*;
+
+/**
+ * 전체 회원 MemberTeamDto 조회 : 프로젝션 방식별 할당량(-prof gc의 gc.alloc.rate.norm, B/op)과 시간
+ * - queryProjection / bean / fields / constructor / tuple : QueryDsl (row마다 Object[] + 리플렉션 또는 Tuple)
+ * - jdbcDto / jdbcColumns : MemberSearchJdbcRepository (ResultSet -> 생성자, 컬럼 배열)
+ * 모두 같은 읽기 전용 트랜잭션 안에서 실행한다.
+ * 실행 : ./gradlew jmh -PjmhIncludes=ProjectionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    private final SearchCond all = new SearchCond();
+
+    private JPAQueryFactory queryFactory;
+    private MemberSearchJdbcRepository memberSearchJdbcRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataset dataset) {
+        queryFactory = dataset.getBean(JPAQueryFactory.class);
+        memberSearchJdbcRepository = dataset.getBean(MemberSearchJdbcRepository.class);
+        readOnly = new TransactionTemplate(dataset.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> queryProjection() {
+        return readOnly.execute(status -> from(queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))).fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> bean() {
+        return readOnly.execute(status -> from(queryFactory
+                .select(Projections.bean(MemberTeamDto.class,
+                        member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamName"))))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> fields() {
+        return readOnly.execute(status -> from(queryFactory
+                .select(Projections.fields(MemberTeamDto.class,
+                        member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamName"))))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> constructor() {
+        return readOnly.execute(status -> from(queryFactory
+                .select(Projections.constructor(MemberTeamDto.class,
+                        member.id, member.username, member.age, team.id, team.name)))
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Tuple> tuple() {
+        return readOnly.execute(status -> from(queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)).fetch());
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jdbcDto() {
+        return readOnly.execute(status -> memberSearchJdbcRepository.search(all));
+    }
+
+    @Benchmark
+    public MemberTeamColumns jdbcColumns() {
+        return readOnly.execute(status -> memberSearchJdbcRepository.searchColumns(all));
+    }
+
+    private <T> JPAQuery<T> from(JPAQuery<T> query) {
+        return query.from(member).leftJoin(member.team, team);
+    }
+}
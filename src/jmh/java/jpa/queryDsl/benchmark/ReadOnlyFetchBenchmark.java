@@ -0,0 +1,63 @@
+package jpa.queryDsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.MemberJpaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.hibernate.annotations.QueryHints;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static jpa.queryDsl.entity.QMember.*;
+
+/**
+ * 전체 회원 엔티티 조회 : 읽기/쓰기 vs 읽기 전용
+ * - readWrite : 엔티티마다 스냅샷 복사 + 커밋 때 flush 변경 감지
+ * - readOnlyHint : 같은 읽기/쓰기 트랜잭션이지만 READ_ONLY 힌트 -> 스냅샷, 변경 감지 없음
+ * - readOnlyTransaction : 읽기 전용 트랜잭션 (세션 read-only + FlushMode.MANUAL)
+ * 차이는 -prof gc의 gc.alloc.rate.norm(B/op)과 처리량으로 본다.
+ * 실행 : ./gradlew jmh -PjmhIncludes=ReadOnlyFetchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyFetchBenchmark {
+
+    private JPAQueryFactory queryFactory;
+    private MemberJpaRepository memberJpaRepository;
+    private TransactionTemplate readWrite;
+
+    @Setup(Level.Trial)
+    public void setUp(MemberDataset dataset) {
+        queryFactory = dataset.getBean(JPAQueryFactory.class);
+        memberJpaRepository = dataset.getBean(MemberJpaRepository.class);
+        readWrite = new TransactionTemplate(dataset.getBean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    public List<Member> readWrite() {
+        return readWrite.execute(status -> queryFactory.selectFrom(member).fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyHint() {
+        return readWrite.execute(status -> queryFactory.selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, true)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyTransaction() {
+        return memberJpaRepository.findAllQueryDsl();
+    }
+}
@@ -0,0 +1,91 @@
+package jpa.queryDsl.benchmark;
+
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepository.search SQL 추적 오버헤드 : 없음 vs SqlTracer(sampleRate 0, 0.01, 1) vs p6spy
+ * - 같은 데이터셋을 각각 다른 H2 DB에 띄운다. 둘 다 로그 출력은 꺼서 가로채기 + 파라미터 수집 비용만 비교
+ * - 이름 하나(결과 1건, 문장 비용이 작아서 오버헤드가 잘 보인다), 팀 + 나이 범위
+ * 실행 : ./gradlew jmh -PjmhIncludes=SqlTracingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SqlTracingBenchmark {
+
+    private final SearchCond username = new SearchCond("member42", null, null, null);
+    private final SearchCond teamAndAge = new SearchCond(null, "team1", 20, 39);
+
+    @State(Scope.Benchmark)
+    public static class Untraced {
+        private MemberRepository memberRepository;
+
+        @Setup(Level.Trial)
+        public void setUp(MemberDataset dataset) {
+            memberRepository = dataset.getBean(MemberRepository.class);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Traced {
+        private MemberRepository memberRepository;
+
+        @Setup(Level.Trial)
+        public void setUp(TracedMemberDataset dataset) {
+            memberRepository = dataset.getBean(MemberRepository.class);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class P6spy {
+        private MemberRepository memberRepository;
+
+        @Setup(Level.Trial)
+        public void setUp(P6spyMemberDataset dataset) {
+            memberRepository = dataset.getBean(MemberRepository.class);
+        }
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> untracedUsername(Untraced path) {
+        return path.memberRepository.search(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> tracerUsername(Traced path) {
+        return path.memberRepository.search(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> p6spyUsername(P6spy path) {
+        return path.memberRepository.search(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> untracedTeamAndAge(Untraced path) {
+        return path.memberRepository.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> tracerTeamAndAge(Traced path) {
+        return path.memberRepository.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> p6spyTeamAndAge(P6spy path) {
+        return path.memberRepository.search(teamAndAge);
+    }
+}
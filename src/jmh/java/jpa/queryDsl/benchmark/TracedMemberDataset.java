@@ -0,0 +1,26 @@
+package jpa.queryDsl.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// MemberDataset과 같은 데이터 + SqlTracer (별도 H2 DB), 샘플 로그는 끈다.
+@State(Scope.Benchmark)
+public class TracedMemberDataset extends MemberDataset {
+
+    @Param({"0", "0.01", "1"})
+    public String sampleRate;
+
+    @Override
+    protected Map<String, Object> properties() {
+        Map<String, Object> properties = new HashMap<>(super.properties());
+        properties.put("spring.datasource.url", "jdbc:h2:mem:benchTraced;DB_CLOSE_DELAY=-1");
+        properties.put("member.sql-trace.enabled", "true");
+        properties.put("member.sql-trace.sample-rate", sampleRate);
+        properties.put("logging.level.jpa.queryDsl.metrics.SqlTracer", "info");
+        return properties;
+    }
+}
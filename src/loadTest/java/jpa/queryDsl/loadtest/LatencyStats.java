@@ -0,0 +1,76 @@
+package jpa.queryDsl.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 요청 지연 시간(마이크로초)을 전부 모아서 정확한 백분위를 구한다. (요청 백만 건에 8MB)
+ * 워커 스레드마다 따로 쌓고 끝난 뒤 merge -> 기록할 때 동기화 없음
+ */
+public class LatencyStats {
+
+    private long[] micros = new long[1024];
+    private int count;
+    private long errors;
+
+    public void record(long elapsedNanos, boolean success) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = elapsedNanos / 1_000;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    public void merge(LatencyStats other) {
+        if (count + other.count > micros.length) {
+            micros = Arrays.copyOf(micros, Math.max(micros.length * 2, count + other.count));
+        }
+        System.arraycopy(other.micros, 0, micros, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    public long getRequests() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getErrorRate() {
+        return count == 0 ? 0 : (double) errors / count;
+    }
+
+    // 처리량, 에러율, 지연 시간(ms) 요약
+    public Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(micros, count);
+        Arrays.sort(sorted);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", count == 0 ? 0 : Arrays.stream(sorted).average().orElse(0) / 1_000);
+        latency.put("p50", percentile(sorted, 0.50));
+        latency.put("p95", percentile(sorted, 0.95));
+        latency.put("p99", percentile(sorted, 0.99));
+        latency.put("max", count == 0 ? 0 : sorted[count - 1] / 1_000d);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("errors", errors);
+        summary.put("errorRate", getErrorRate());
+        summary.put("throughput", count / seconds);
+        summary.put("latencyMs", latency);
+        return summary;
+    }
+
+    // nearest-rank
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000d;
+    }
+}
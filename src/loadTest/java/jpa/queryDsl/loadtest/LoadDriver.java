@@ -0,0 +1,135 @@
+package jpa.queryDsl.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 스레드 N개가 쉬지 않고(think time 없이) GET 요청을 보내는 닫힌 부하 (closed model)
+ * warmup 동안은 보내기만 하고, 그 뒤 duration 동안의 요청만 센다.
+ * 요청 종류는 LoadScenario 가중치대로 고르고, 지연 시간은 종류별로 모은다.
+ */
+public class LoadDriver {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final URI baseUri;
+
+    public LoadDriver(URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    public StepResult run(int threads, Duration warmup, Duration duration, LoadScenario scenario) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        int requestTypes = scenario.names().size();
+
+        List<Thread> workers = new ArrayList<>();
+        List<LatencyStats[]> workerStats = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            LatencyStats[] stats = new LatencyStats[requestTypes];
+            for (int type = 0; type < requestTypes; type++) {
+                stats[type] = new LatencyStats();
+            }
+            workerStats.add(stats);
+
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    int type = scenario.next(random);
+                    boolean success = send(scenario.path(type, random));
+                    long finished = System.nanoTime();
+                    if (now >= measureFrom) {
+                        stats[type].record(finished - now, success);
+                    }
+                }
+            }, "load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Map<String, LatencyStats> byRequest = new LinkedHashMap<>();
+        LatencyStats total = new LatencyStats();
+        for (int type = 0; type < requestTypes; type++) {
+            LatencyStats merged = new LatencyStats();
+            for (LatencyStats[] stats : workerStats) {
+                merged.merge(stats[type]);
+            }
+            byRequest.put(scenario.names().get(type), merged);
+            total.merge(merged);
+        }
+        return new StepResult(threads, duration, total, byRequest);
+    }
+
+    // 2xx가 아니거나 연결이 실패하면 에러
+    private boolean send(String path) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static class StepResult {
+        private final int threads;
+        private final Duration duration;
+        private final LatencyStats total;
+        private final Map<String, LatencyStats> byRequest;
+
+        private StepResult(int threads, Duration duration, LatencyStats total, Map<String, LatencyStats> byRequest) {
+            this.threads = threads;
+            this.duration = duration;
+            this.total = total;
+            this.byRequest = byRequest;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public LatencyStats getTotal() {
+            return total;
+        }
+
+        public double getThroughput() {
+            return total.getRequests() / getSeconds();
+        }
+
+        public double getSeconds() {
+            return duration.toNanos() / 1_000_000_000d;
+        }
+
+        // results.json의 steps 항목
+        public Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("threads", threads);
+            summary.putAll(total.summary(getSeconds()));
+            Map<String, Object> requests = new LinkedHashMap<>();
+            byRequest.forEach((name, stats) -> requests.put(name, stats.summary(getSeconds())));
+            summary.put("byRequest", requests);
+            return summary;
+        }
+    }
+}
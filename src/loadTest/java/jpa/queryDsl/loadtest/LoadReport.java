@@ -0,0 +1,102 @@
+package jpa.queryDsl.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 테스트 결과 (results.json) + 기준 결과와 비교
+ * 같은 스레드 수 단계끼리 처리량, p99, 에러율을 비교해서 max-regression보다 나빠진 항목을 돌려준다.
+ */
+public class LoadReport {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final List<LoadDriver.StepResult> steps;
+
+    public LoadReport(Map<String, Object> settings, List<LoadDriver.StepResult> steps) {
+        this.steps = steps;
+        report.put("timestamp", Instant.now().toString());
+        report.put("cores", Runtime.getRuntime().availableProcessors());
+        report.put("java", System.getProperty("java.version"));
+        report.putAll(settings);
+        List<Map<String, Object>> stepSummaries = new ArrayList<>();
+        for (LoadDriver.StepResult step : steps) {
+            stepSummaries.add(step.summary());
+        }
+        report.put("steps", stepSummaries);
+    }
+
+    public void write(Path output) throws IOException {
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+    }
+
+    public void print() {
+        System.out.printf("%n%8s %10s %10s %8s %8s %8s %8s %7s%n",
+                "threads", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "errors", "scale");
+        double base = steps.get(0).getThroughput();
+        for (LoadDriver.StepResult step : steps) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> latency = (Map<String, Object>) step.getTotal().summary(step.getSeconds()).get("latencyMs");
+            System.out.printf("%8d %10d %10.1f %8.2f %8.2f %8.2f %8d %6.2fx%n", step.getThreads(),
+                    step.getTotal().getRequests(), step.getThroughput(), latency.get("p50"), latency.get("p95"),
+                    latency.get("p99"), step.getTotal().getErrors(), step.getThroughput() / base);
+        }
+    }
+
+    // 나빠진 항목 설명, 없으면 빈 리스트
+    public List<String> compare(Path baseline, double maxRegression) throws IOException {
+        JsonNode baselineSteps = objectMapper.readTree(baseline.toFile()).path("steps");
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%nbaseline %s%n%8s %12s %12s %12s%n", baseline, "threads", "req/s", "p99 ms", "errorRate");
+        for (LoadDriver.StepResult step : steps) {
+            JsonNode before = find(baselineSteps, step.getThreads());
+            if (before == null) {
+                continue;
+            }
+            Map<String, Object> after = step.summary();
+            @SuppressWarnings("unchecked")
+            double p99 = (double) ((Map<String, Object>) after.get("latencyMs")).get("p99");
+            double throughputChange = change(before.path("throughput").asDouble(), step.getThroughput());
+            double p99Change = change(before.path("latencyMs").path("p99").asDouble(), p99);
+            double errorRate = step.getTotal().getErrorRate();
+            System.out.printf("%8d %+11.1f%% %+11.1f%% %12.4f%n", step.getThreads(), throughputChange * 100, p99Change * 100, errorRate);
+
+            if (throughputChange < -maxRegression) {
+                regressions.add(String.format("threads=%d throughput %.1f%%", step.getThreads(), throughputChange * 100));
+            }
+            if (p99Change > maxRegression) {
+                regressions.add(String.format("threads=%d p99 +%.1f%%", step.getThreads(), p99Change * 100));
+            }
+            if (errorRate > before.path("errorRate").asDouble()) {
+                regressions.add(String.format("threads=%d errorRate %.4f -> %.4f", step.getThreads(),
+                        before.path("errorRate").asDouble(), errorRate));
+            }
+        }
+        return regressions;
+    }
+
+    private static JsonNode find(JsonNode steps, int threads) {
+        for (JsonNode step : steps) {
+            if (step.path("threads").asInt() == threads) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before;
+    }
+}
@@ -0,0 +1,118 @@
+package jpa.queryDsl.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * 요청 구성 : SearchCond + Pageable 조합별 가중치
+ * 데이터셋은 LoadTestApplication 모양(회원 i : member + i, 나이 i % 100, 팀 i % teams)이라 조건마다 결과 수가 정해진다.
+ * - v1* : /v1/members (List, 페이징 없음) -> 결과가 작은 조건만
+ * - v2* : /v2/members (Page), 페이지는 앞쪽에 몰리게(70%는 첫 페이지), size는 10/20/50
+ * loadTest.mix=v1Username:1,v2Team:3 처럼 이름:가중치로 바꿀 수 있다. (없는 이름은 빠진다.)
+ */
+public class LoadScenario {
+
+    public static final String DEFAULT_MIX = "v1Username:15,v1TeamAge:20,v1Team:5,v2All:10,v2Team:20,v2TeamAge:15,v2Age:10,v2UsernameTeam:5";
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Function<ThreadLocalRandom, String>> paths = new ArrayList<>();
+    private final Map<String, Integer> weights = new LinkedHashMap<>();
+    private int[] cumulative = new int[0];
+
+    private LoadScenario() {
+    }
+
+    public static LoadScenario parse(String mix, int members, int teams) {
+        Map<String, Function<ThreadLocalRandom, String>> templates = templates(members, teams);
+        LoadScenario scenario = new LoadScenario();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split(":");
+            String name = nameAndWeight[0].trim();
+            int weight = nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1].trim()) : 1;
+            Function<ThreadLocalRandom, String> template = templates.get(name);
+            if (template == null) {
+                throw new IllegalArgumentException("unknown request " + name + ", available : " + templates.keySet());
+            }
+            if (weight > 0) {
+                scenario.add(name, weight, template);
+            }
+        }
+        if (scenario.names.isEmpty()) {
+            throw new IllegalArgumentException("mix has no requests : " + mix);
+        }
+        return scenario;
+    }
+
+    public List<String> names() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public Map<String, Integer> weights() {
+        return Collections.unmodifiableMap(weights);
+    }
+
+    // 가중치대로 고른 요청의 번호 (names() 순서)
+    public int next(ThreadLocalRandom random) {
+        int pick = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (pick < cumulative[i]) {
+                return i;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    public String path(int request, ThreadLocalRandom random) {
+        return paths.get(request).apply(random);
+    }
+
+    private void add(String name, int weight, Function<ThreadLocalRandom, String> path) {
+        int total = cumulative.length == 0 ? 0 : cumulative[cumulative.length - 1];
+        names.add(name);
+        paths.add(path);
+        weights.put(name, weight);
+        int[] next = new int[cumulative.length + 1];
+        System.arraycopy(cumulative, 0, next, 0, cumulative.length);
+        next[cumulative.length] = total + weight;
+        cumulative = next;
+    }
+
+    private static Map<String, Function<ThreadLocalRandom, String>> templates(int members, int teams) {
+        Map<String, Function<ThreadLocalRandom, String>> templates = new LinkedHashMap<>();
+        // 결과 1건
+        templates.put("v1Username", r -> "/v1/members?username=member" + r.nextInt(members));
+        // 팀 하나 + 나이 하나 : 약 members / teams / 100건
+        templates.put("v1TeamAge", r -> {
+            int age = r.nextInt(100);
+            return "/v1/members?teamName=team" + r.nextInt(teams) + "&ageGoe=" + age + "&ageLoe=" + age;
+        });
+        // 팀 하나 : 약 members / teams건
+        templates.put("v1Team", r -> "/v1/members?teamName=team" + r.nextInt(teams));
+        // 조건 없음 : 전체 페이징 (카운트가 가장 비싸다)
+        templates.put("v2All", r -> "/v2/members?" + page(r));
+        templates.put("v2Team", r -> "/v2/members?teamName=team" + r.nextInt(teams) + "&" + page(r));
+        templates.put("v2TeamAge", r -> {
+            int ageGoe = r.nextInt(90);
+            return "/v2/members?teamName=team" + r.nextInt(teams) + "&ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 10) + "&" + page(r);
+        });
+        templates.put("v2Age", r -> {
+            int ageGoe = r.nextInt(80);
+            return "/v2/members?ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 20) + "&" + page(r);
+        });
+        // 이름 + 팀 : 대부분 0건 (팀이 안맞으면)
+        templates.put("v2UsernameTeam", r -> "/v2/members?username=member" + r.nextInt(members)
+                + "&teamName=team" + r.nextInt(teams) + "&" + page(r));
+        return templates;
+    }
+
+    private static String page(ThreadLocalRandom random) {
+        int page = random.nextInt(100) < 70 ? 0 : random.nextInt(10);
+        int[] sizes = {10, 20, 20, 50};
+        return "page=" + page + "&size=" + sizes[random.nextInt(sizes.length)];
+    }
+}
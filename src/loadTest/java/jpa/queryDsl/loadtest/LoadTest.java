@@ -0,0 +1,82 @@
+package jpa.queryDsl.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * /v1/members, /v2/members 동시 부하 : 스레드 수를 늘려가며 처리량이 코어 수만큼 늘어나는지 본다.
+ * 실행 : ./gradlew loadTest -PloadTest.members=100000 -PloadTest.threads=1,2,4,8
+ * - loadTest.members (10000, 천만까지) / loadTest.teams (회원 천 명당 한 팀, 최소 10) : 데이터셋
+ * - loadTest.mix : 요청 종류별 가중치 (LoadScenario.DEFAULT_MIX)
+ * - loadTest.threads : 동시 요청 수 단계 (기본 1, 2, 4 ... 코어 수 * 2)
+ * - loadTest.warmup (3s), loadTest.duration (10s) : 단계마다
+ * - loadTest.output (build/results/loadtest/results.json) : 처리량, p50/p95/p99, 에러율 (전체 + 요청 종류별)
+ * - loadTest.baseline : 이전 results.json, 같은 단계보다 loadTest.maxRegression(0.1) 넘게 나빠지면 종료 코드 1
+ * 클라이언트와 서버가 같은 JVM이라 코어를 나눠 쓴다. 절대값보다 단계별 증가율(scale)과 기준 대비 변화를 본다.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int members = Integer.getInteger("loadTest.members", 10_000);
+        int teams = Integer.getInteger("loadTest.teams", Math.max(10, members / 1_000));
+        String mix = System.getProperty("loadTest.mix", LoadScenario.DEFAULT_MIX);
+        Duration warmup = Duration.parse("PT" + System.getProperty("loadTest.warmup", "3s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("loadTest.duration", "10s"));
+        List<Integer> threadSteps = threadSteps(System.getProperty("loadTest.threads"));
+        Path output = Path.of(System.getProperty("loadTest.output", "build/results/loadtest/results.json"));
+        String baseline = System.getProperty("loadTest.baseline");
+        double maxRegression = Double.parseDouble(System.getProperty("loadTest.maxRegression", "0.1"));
+        if (members < 1) {
+            throw new IllegalArgumentException("loadTest.members must be positive : " + members);
+        }
+        LoadScenario scenario = LoadScenario.parse(mix, members, teams);
+
+        LoadReport report;
+        try (LoadTestApplication application = LoadTestApplication.start(members, teams)) {
+            LoadDriver driver = new LoadDriver(application.getBaseUri());
+            List<LoadDriver.StepResult> steps = new ArrayList<>();
+            for (int threads : threadSteps) {
+                steps.add(driver.run(threads, warmup, duration, scenario));
+            }
+
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("members", members);
+            settings.put("teams", teams);
+            settings.put("warmupSeconds", warmup.toSeconds());
+            settings.put("durationSeconds", duration.toSeconds());
+            settings.put("mix", scenario.weights());
+            report = new LoadReport(settings, steps);
+        }
+
+        report.write(output);
+        report.print();
+        System.out.printf("%nresults : %s%n", output.toAbsolutePath());
+        if (baseline != null) {
+            List<String> regressions = report.compare(Path.of(baseline), maxRegression);
+            if (!regressions.isEmpty()) {
+                System.out.println("regressions : " + regressions);
+                System.exit(1);
+            }
+        }
+    }
+
+    private static List<Integer> threadSteps(String threads) {
+        if (threads != null) {
+            return Arrays.stream(threads.split(","))
+                    .map(String::trim)
+                    .map(Integer::valueOf)
+                    .collect(Collectors.toList());
+        }
+        List<Integer> steps = new ArrayList<>();
+        for (int step = 1; step <= Runtime.getRuntime().availableProcessors() * 2; step *= 2) {
+            steps.add(step);
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,72 @@
+package jpa.queryDsl.loadtest;
+
+import jpa.queryDsl.QueryDslApplication;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.service.MemberImportService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 부하 테스트 대상 : perf 프로파일 + 임베디드 H2 + 랜덤 포트로 애플리케이션을 띄우고 회원을 채운다.
+ * 회원 i : username = "member" + i, age = i % 100, team = "team" + (i % teams) (MemberDataset과 같은 모양)
+ * MemberImportService로 chunk마다 커밋하면서 넣어서 천만 건도 JVM 힙은 H2 데이터만큼만 쓴다.
+ */
+public class LoadTestApplication implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final URI baseUri;
+
+    private LoadTestApplication(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    public static LoadTestApplication start(int members, int teams) {
+        // application.yml보다 우선하도록 커맨드라인 인자로 넘긴다.
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QueryDslApplication.class).run(
+                "--spring.profiles.active=perf",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64",
+                "--server.port=0");
+        LoadTestApplication application = new LoadTestApplication(context);
+        application.seed(members, teams);
+        return application;
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private void seed(int members, int teams) {
+        List<Team> savedTeams = saveTeams(teams);
+        context.getBean(MemberImportService.class).importMembers(IntStream.range(0, members)
+                .mapToObj(i -> new Member("member" + i, i % 100, savedTeams.get(i % teams))));
+    }
+
+    private List<Team> saveTeams(int teams) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        return transactionTemplate.execute(status -> {
+            List<Team> result = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                result.add(team);
+            }
+            return result;
+        });
+    }
+}
@@ -1,6 +1,8 @@
 package jpa.queryDsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.metrics.DiagnosticJPAQueryFactory;
+import jpa.queryDsl.metrics.QueryDiagnostics;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -14,8 +16,9 @@ public class QueryDslApplication {
 		SpringApplication.run(QueryDslApplication.class, args);
 	}
 
+	// 실행한 쿼리를 모양별로 기록하는 JPAQueryFactory -> /actuator/querydiagnostics
 	@Bean
-	JPAQueryFactory queryFactory(EntityManager em){
-		return new JPAQueryFactory(em);
+	JPAQueryFactory queryFactory(EntityManager em, QueryDiagnostics queryDiagnostics){
+		return new DiagnosticJPAQueryFactory(em, queryDiagnostics);
 	}
 }
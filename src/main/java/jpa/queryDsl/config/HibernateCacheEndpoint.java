@@ -0,0 +1,72 @@
+package jpa.queryDsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 2차 캐시 리전별 hit / miss / put / eviction 통계 : GET /actuator/hibernatecache
+ * eviction은 하이버네이트 통계에 없어서 JCache 통계 MBean에서 읽는다. (이 컨텍스트의 CacheManager 것만)
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+@ConditionalOnProperty(prefix = "member.cache", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class HibernateCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager hibernateCacheManager;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("hits", region.getHitCount());
+            stats.put("misses", region.getMissCount());
+            stats.put("puts", region.getPutCount());
+            stats.put("evictions", evictions(regionName));
+            stats.put("size", region.getElementCountInMemory());
+            result.put(regionName, stats);
+        }
+        return result;
+    }
+
+    private long evictions(String regionName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Set<ObjectName> names = server.queryNames(new ObjectName("javax.cache:type=CacheStatistics"
+                    + ",CacheManager=" + sanitize(hibernateCacheManager.getURI().toString())
+                    + ",Cache=" + sanitize(regionName)), null);
+            long evictions = 0;
+            for (ObjectName name : names) {
+                evictions += (Long) server.getAttribute(name, "CacheEvictions");
+            }
+            return evictions;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    // Ehcache가 MBean 이름을 만들 때와 같은 치환 (Eh107MXBean)
+    private static String sanitize(String value) {
+        return value.replaceAll(",|:|=|\n", ".");
+    }
+}
@@ -0,0 +1,90 @@
+package jpa.queryDsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 비동기 회원 검색 전용 스레드 풀
+ * 요청 스레드(톰캣)는 쿼리를 기다리지 않고 반환되고, 쿼리는 이 풀에서 실행된다.
+ * 풀과 대기열이 모두 차면 AbortPolicy로 바로 거절(TaskRejectedException)해서 대기열이 끝없이 늘어나지 않게 한다. (backpressure)
+ * Executor 빈으로 등록하면 스프링 부트 기본 applicationTaskExecutor(MVC 비동기 처리용)가 빠지기 때문에 감싸서 등록한다.
+ * orTimeout 등으로 결과를 기다리지 않게 되어도 쿼리는 계속 돌기 때문에
+ * - 작업마다 남은 시간(timeout - 대기열에서 기다린 시간)을 트랜잭션 타임아웃으로 걸어서 쿼리에 javax.persistence.query.timeout 힌트가 붙게 하고
+ * - 결과가 실행 전에 끝나면(타임아웃, cancel) 대기열의 작업은 실행하지 않는다.
+ */
+@Component
+public class MemberSearchExecutor {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    private final PlatformTransactionManager transactionManager;
+    private final long timeoutNanos;
+
+    public MemberSearchExecutor(MemberSearchExecutorProperties properties, MeterRegistry registry,
+                                PlatformTransactionManager transactionManager) {
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("member-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        // executor.active, executor.queued 등 -> /actuator/prometheus
+        ExecutorServiceMetrics.monitor(registry, executor.getThreadPoolExecutor(), "memberSearch");
+
+        this.transactionManager = transactionManager;
+        this.timeoutNanos = properties.getTimeout().toNanos();
+    }
+
+    // 작업마다 읽기 전용 트랜잭션(커넥션 하나)에서 실행 -> replica 사용
+    public <T> CompletableFuture<T> supply(Supplier<T> task) throws TaskRejectedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> submitted = executor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(transaction(deadline).execute(status -> task.get()));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // 대기열에 있는 동안 끝나면 꺼내지 않는다. 실행 중인 쿼리는 인터럽트하지 않고(H2 파일 채널이 닫힌다) 쿼리 타임아웃에 맡긴다.
+        result.whenComplete((value, e) -> {
+            if (e != null) {
+                submitted.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private TransactionTemplate transaction(long deadline) throws TimeoutException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException("member search timed out in queue");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout((int) Math.max(1, (remaining + 999_999_999) / 1_000_000_000)); // 초 단위 (JDBC query timeout과 같음)
+        return transaction;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package jpa.queryDsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "member.search.executor")
+@Getter @Setter
+public class MemberSearchExecutorProperties {
+
+    // 동시에 실행되는 검색 쿼리 수 = 커넥션 풀을 다 쓰지 않도록 풀 크기보다 작게 둔다.
+    private int poolSize = 8;
+
+    // 대기열이 차면 더 받지 않고 바로 거절(503)한다.
+    private int queueCapacity = 100;
+
+    // 응답 대기 시간, 넘으면 503
+    private Duration timeout = Duration.ofSeconds(5);
+}
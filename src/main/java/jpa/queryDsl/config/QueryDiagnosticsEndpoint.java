@@ -0,0 +1,74 @@
+package jpa.queryDsl.config;
+
+import jpa.queryDsl.metrics.QueryDiagnostics;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 쿼리 진단 : GET /actuator/querydiagnostics
+ * - hibernate : 하이버네이트 Statistics 요약 (hibernate.generate_statistics=true)
+ * - shapes : JPQL 모양별 실행 횟수 / 평균, 최대 시간 / row 수 (총 시간 순)
+ * - slowQueries : 느리거나 row가 많은 최근 쿼리와 실행한 레포지토리 메서드
+ * DELETE /actuator/querydiagnostics : 전부 초기화
+ */
+@Component
+@Endpoint(id = "querydiagnostics")
+@RequiredArgsConstructor
+public class QueryDiagnosticsEndpoint {
+
+    private final QueryDiagnostics queryDiagnostics;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Object> diagnostics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hibernate", hibernate(statistics()));
+        result.put("shapes", queryDiagnostics.shapes());
+        result.put("slowQueries", queryDiagnostics.slowQueries());
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryDiagnostics.reset();
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Map<String, Object> hibernate(Statistics statistics) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("sessions", statistics.getSessionOpenCount());
+        result.put("transactions", statistics.getTransactionCount());
+        result.put("statements", statistics.getPrepareStatementCount());
+        result.put("flushes", statistics.getFlushCount());
+        result.put("queries", statistics.getQueryExecutionCount());
+        result.put("queryMaxMs", statistics.getQueryExecutionMaxTime());
+        result.put("queryMaxJpql", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("entityFetches", statistics.getEntityFetchCount()); // 지연 로딩 등으로 따로 조회한 수
+        result.put("collectionFetches", statistics.getCollectionFetchCount());
+        result.put("secondLevelCacheHitRatio", ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        result.put("queryCacheHitRatio", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        result.put("queryPlanCacheHitRatio", ratio(statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount()));
+        return result;
+    }
+
+    // 조회가 없었으면 null
+    private static Double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? null : (double) hits / total;
+    }
+}
@@ -0,0 +1,152 @@
+package jpa.queryDsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.util.StringUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * replica 목록, 상태 확인, 선택(라운드 로빈)
+ * checkInterval마다 연결과 복제 지연을 확인해서 실패하거나 maxLag를 넘은 replica는 선택에서 뺀다.
+ * 쓸 수 있는 replica가 없으면 null -> primary로 보낸다.
+ * 첫 확인도 기동을 막지 않게 백그라운드에서 한다. (끝나기 전까지는 primary로 읽는다.)
+ * replica가 응답하지 않을 때 요청이 오래 붙잡히지 않게 connectionTimeout / validationTimeout을 짧게 둔다.
+ */
+@Slf4j
+public class ReplicaPool implements DisposableBean {
+
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+
+    public ReplicaPool(ReplicaProperties properties) {
+        List<Replica> replicas = new ArrayList<>();
+        for (ReplicaProperties.Node node : properties.getNodes()) {
+            replicas.add(new Replica(node, createDataSource(node, properties)));
+        }
+        this.replicas = Collections.unmodifiableList(replicas);
+        this.maxLag = properties.getMaxLag();
+        this.validationTimeoutSeconds = (int) Math.max(1, properties.getValidationTimeout().toSeconds());
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkNow, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    // 쓸 수 있는 replica 중에서 차례대로
+    public Replica select() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void checkNow() {
+        replicas.forEach(this::check);
+    }
+
+    private void check(Replica replica) {
+        boolean wasAvailable = replica.available;
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(validationTimeoutSeconds)) {
+                throw new IllegalStateException("connection is not valid");
+            }
+            replica.lagSeconds = lagSeconds(connection, replica.node.getLagQuery());
+            replica.error = null;
+            replica.available = replica.lagSeconds <= maxLag.getSeconds();
+        } catch (Exception e) {
+            replica.error = e.getMessage();
+            replica.available = false;
+        }
+        if (wasAvailable != replica.available) {
+            log.warn("replica {} available={} lag={}s error={}",
+                    replica.getName(), replica.available, replica.lagSeconds, replica.error);
+        }
+    }
+
+    private long lagSeconds(Connection connection, String lagQuery) throws Exception {
+        if (!StringUtils.hasText(lagQuery)) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            // 결과가 없거나 null이면 지연을 알 수 없으므로 사용하지 않는다.
+            if (!resultSet.next()) {
+                return Long.MAX_VALUE;
+            }
+            long lag = resultSet.getLong(1);
+            return resultSet.wasNull() ? Long.MAX_VALUE : lag;
+        }
+    }
+
+    private static HikariDataSource createDataSource(ReplicaProperties.Node node, ReplicaProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(node.getUrl())
+                .username(node.getUsername())
+                .password(node.getPassword())
+                .driverClassName(node.getDriverClassName())
+                .build();
+        dataSource.setPoolName("replica-" + node.getName());
+        dataSource.setMaximumPoolSize(properties.getPoolSize());
+        dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        dataSource.setValidationTimeout(properties.getValidationTimeout().toMillis());
+        dataSource.setReadOnly(true);
+        // 기동 시 replica가 죽어 있어도 애플리케이션은 뜨고 primary로 읽는다.
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    @Getter
+    public static class Replica {
+        private final ReplicaProperties.Node node;
+        private final HikariDataSource dataSource;
+        private volatile boolean available;
+        private volatile long lagSeconds;
+        private volatile String error;
+
+        private Replica(ReplicaProperties.Node node, HikariDataSource dataSource) {
+            this.node = node;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return node.getName();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jpa.queryDsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제본(replica) 설정 (기본 꺼짐)
+ * 쓰기 DB(primary)는 spring.datasource를 그대로 사용한다.
+ */
+@Component
+@ConfigurationProperties(prefix = "member.replica")
+@Getter @Setter
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+
+    // 복제 지연이 이보다 크면 그 replica로 보내지 않는다.
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration checkInterval = Duration.ofSeconds(5);
+    private int poolSize = 10;
+
+    // replica 커넥션을 기다리는 시간 (hikari 기본 30초), 넘으면 실패하고 다음 확인에서 빠진다.
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+    // connectionTimeout보다 짧게 (hikari 최소 250ms)
+    private Duration validationTimeout = Duration.ofMillis(500);
+    private List<Node> nodes = new ArrayList<>();
+
+    @Getter @Setter
+    public static class Node {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+
+        // 복제 지연(초)을 돌려주는 쿼리, 없으면 연결만 확인한다.
+        // ex) MySQL : select timestampdiff(second, max(ts), now()) from heartbeat
+        private String lagQuery;
+    }
+}
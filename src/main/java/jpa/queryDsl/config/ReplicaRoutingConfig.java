@@ -0,0 +1,71 @@
+package jpa.queryDsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 읽기/쓰기 분리 (member.replica.enabled=true 일 때만)
+ * JPA와 JPAQueryFactory는 그대로 하나의 DataSource를 쓰고, 커넥션을 받을 때 트랜잭션 readOnly 여부로 primary / replica를 고른다.
+ * replica 상태는 /actuator/health의 replicas 항목으로 본다.
+ * SQL 추적(SqlTraceConfig)은 routingDataSource를 감싼다. 커넥션을 받을 때 아무것도 호출하지 않아서 라우팅은 그대로고,
+ * primaryDataSource는 member.sql-trace.exclude-beans로 빼서 같은 SQL이 두 번 기록되지 않게 한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.replica", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(ReplicaProperties properties) {
+        return new ReplicaPool(properties);
+    }
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaPool);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // replica가 모두 빠져도 primary로 읽을 수 있어서 DOWN이 아니라 DEGRADED
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaPool replicaPool) {
+        return () -> {
+            Map<String, Object> details = new LinkedHashMap<>();
+            boolean allAvailable = true;
+            for (ReplicaPool.Replica replica : replicaPool.getReplicas()) {
+                Map<String, Object> detail = new LinkedHashMap<>();
+                detail.put("available", replica.isAvailable());
+                detail.put("lagSeconds", replica.getLagSeconds());
+                if (replica.getError() != null) {
+                    detail.put("error", replica.getError());
+                }
+                details.put(replica.getName(), detail);
+                allAvailable &= replica.isAvailable();
+            }
+            Health.Builder builder = allAvailable ? Health.up() : Health.status(new Status("DEGRADED"));
+            return builder.withDetails(details).build();
+        };
+    }
+}
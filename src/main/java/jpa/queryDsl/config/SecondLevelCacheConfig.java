@@ -0,0 +1,87 @@
+package jpa.queryDsl.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 하이버네이트 2차 캐시 (JCache + Ehcache, 로컬 힙)
+ * member.cache.enabled=true 일 때만 동작한다. 꺼져 있으면 2차/쿼리 캐시를 명시적으로 끈다.
+ * (hibernate-jcache가 클래스패스에 있으면 설정이 없어도 RegionFactory로 잡혀서 엔티티의 @Cache가 동작해버린다.)
+ * 리전별 ttl, 최대 개수는 member.cache.regions로 설정하고, 통계는 /actuator/hibernatecache로 본다.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "member.cache", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public HibernatePropertiesCustomizer secondLevelCacheDisabledCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+        };
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "member.cache", name = "enabled", havingValue = "true")
+    static class Enabled {
+
+        // JVM 기본 CacheManager는 컨텍스트끼리 리전을 공유하고 한쪽이 close하면 같이 닫히기 때문에 컨텍스트마다 따로 만든다.
+        @Bean(destroyMethod = "close")
+        public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+            EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                    EhcacheCachingProvider.class.getName());
+            CacheManager cacheManager = provider.getCacheManager(
+                    URI.create("urn:queryDsl:second-level-cache:" + UUID.randomUUID()),
+                    new DefaultConfiguration(getClass().getClassLoader()));
+
+            for (Map.Entry<String, SecondLevelCacheProperties.Region> entry : properties.getRegions().entrySet()) {
+                String name = entry.getKey();
+                if (cacheManager.getCache(name) == null) {
+                    cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(
+                            toEhcacheConfiguration(entry.getValue())));
+                }
+                cacheManager.enableStatistics(name, true);
+            }
+            return cacheManager;
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                       SecondLevelCacheProperties properties) {
+            return hibernateProperties -> {
+                hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+                hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, properties.isQueryCache());
+                hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+                hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create-warn");
+                hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            };
+        }
+
+        private org.ehcache.config.CacheConfiguration<Object, Object> toEhcacheConfiguration(
+                SecondLevelCacheProperties.Region region) {
+            CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                    Object.class, Object.class, ResourcePoolsBuilder.heap(region.getMaxEntries()));
+            if (region.getTtl() != null) {
+                builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(region.getTtl()));
+            }
+            return builder.build();
+        }
+    }
+}
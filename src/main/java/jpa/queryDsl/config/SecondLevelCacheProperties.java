@@ -0,0 +1,57 @@
+package jpa.queryDsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 2차 캐시 / 쿼리 캐시 설정 (기본 꺼짐)
+ * regions의 키는 @Cache(region = ...)와 쿼리 힌트에 쓰는 리전 이름이다.
+ */
+@Component
+@ConfigurationProperties(prefix = "member.cache")
+@Getter @Setter
+public class SecondLevelCacheProperties {
+
+    public static final String TEAM = "team";
+    public static final String TEAM_MEMBERS = "team-members";
+    public static final String MEMBER = "member";
+    public static final String MEMBER_SEARCH = "member-search";
+    public static final String QUERY_RESULTS = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    private boolean enabled = false;
+    private boolean queryCache = false;
+    private Map<String, Region> regions = defaultRegions();
+
+    @Getter @Setter
+    public static class Region {
+        private Duration ttl; // null이면 만료 없음
+        private long maxEntries = 1000; // 넘으면 오래된 것부터 제거
+
+        public Region() {
+        }
+
+        public Region(Duration ttl, long maxEntries) {
+            this.ttl = ttl;
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    private static Map<String, Region> defaultRegions() {
+        Map<String, Region> regions = new LinkedHashMap<>();
+        regions.put(TEAM, new Region(Duration.ofMinutes(10), 1_000));
+        regions.put(TEAM_MEMBERS, new Region(Duration.ofMinutes(10), 1_000));
+        regions.put(MEMBER, new Region(Duration.ofMinutes(5), 10_000));
+        regions.put(MEMBER_SEARCH, new Region(Duration.ofSeconds(30), 1_000));
+        regions.put(QUERY_RESULTS, new Region(Duration.ofSeconds(30), 1_000));
+        // 쿼리 캐시 무효화 기준이라 쿼리 캐시보다 먼저 만료되면 안 된다.
+        regions.put(UPDATE_TIMESTAMPS, new Region(null, 10_000));
+        return regions;
+    }
+}
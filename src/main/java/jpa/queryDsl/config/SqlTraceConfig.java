@@ -0,0 +1,47 @@
+package jpa.queryDsl.config;
+
+import jpa.queryDsl.metrics.SqlTracer;
+import jpa.queryDsl.metrics.TracingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 샘플링 SQL 추적 (member.sql-trace.enabled, 기본 켜짐)
+ * 애플리케이션이 쓰는 DataSource 빈을 TracingDataSource로 감싼다. (exclude-beans 제외)
+ * 최근 샘플 / slow 문장은 /actuator/sqltrace, 샘플 SQL 로그는 logging.level.jpa.queryDsl.metrics.SqlTracer: debug
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.sql-trace", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTraceConfig {
+
+    @Bean
+    public SqlTracer sqlTracer(SqlTraceProperties properties) {
+        return new SqlTracer(properties);
+    }
+
+    @Bean
+    public SqlTraceEndpoint sqlTraceEndpoint(SqlTracer sqlTracer) {
+        return new SqlTraceEndpoint(sqlTracer);
+    }
+
+    // static : 다른 빈보다 먼저 등록돼야 DataSource 생성 시점에 감쌀 수 있다. 트레이서/설정은 감쌀 때 꺼낸다.
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor(ObjectProvider<SqlTracer> sqlTracer,
+                                                                   ObjectProvider<SqlTraceProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof TracingDataSource
+                        || properties.getObject().getExcludeBeans().contains(beanName)) {
+                    return bean;
+                }
+                return new TracingDataSource((DataSource) bean, sqlTracer.getObject());
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package jpa.queryDsl.config;
+
+import jpa.queryDsl.metrics.SqlTracer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SQL 추적 : GET /actuator/sqltrace
+ * - statements / sampled : 지금까지 실행한 문장 수 / 샘플링된 문장 수
+ * - recent : 최근 샘플링된 문장과 파라미터, slow : slow-threshold를 넘은 최근 문장
+ * POST /actuator/sqltrace {"sampleRate": 1.0, "slowThresholdMs": 50} : 장애 분석 중에만 잠깐 올리는 용도
+ * DELETE /actuator/sqltrace : 초기화
+ */
+@Endpoint(id = "sqltrace")
+@RequiredArgsConstructor
+public class SqlTraceEndpoint {
+
+    private final SqlTracer sqlTracer;
+
+    @ReadOperation
+    public Map<String, Object> trace() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleRate", sqlTracer.getSampleRate());
+        result.put("slowThresholdMs", sqlTracer.getSlowThresholdMs());
+        result.put("statements", sqlTracer.getStatements());
+        result.put("sampled", sqlTracer.getSampled());
+        result.put("recent", sqlTracer.recent());
+        result.put("slow", sqlTracer.slow());
+        return result;
+    }
+
+    @WriteOperation
+    public void configure(@Nullable Double sampleRate, @Nullable Long slowThresholdMs) {
+        if (sampleRate != null) {
+            sqlTracer.setSampleRate(sampleRate);
+        }
+        if (slowThresholdMs != null) {
+            sqlTracer.setSlowThresholdMs(slowThresholdMs);
+        }
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlTracer.reset();
+    }
+}
@@ -0,0 +1,33 @@
+package jpa.queryDsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL 추적 설정 (SqlTracer, 기본 켜짐)
+ */
+@Component
+@ConfigurationProperties(prefix = "member.sql-trace")
+@Getter @Setter
+public class SqlTraceProperties {
+
+    private boolean enabled = true;
+
+    // 파라미터까지 남기는 비율 (0 ~ 1), 나머지는 시간만 잰다.
+    private double sampleRate = 0.01;
+
+    // 넘으면 샘플링과 상관없이 slow 버퍼에 남긴다.
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    // 최근 샘플 / slow 버퍼 크기 (2의 거듭제곱으로 올림)
+    private int bufferSize = 256;
+
+    // 감싸지 않을 DataSource 빈, 라우팅 프록시 안쪽 풀을 또 감싸면 같은 SQL이 두 번 기록된다. (ReplicaRoutingConfig)
+    private List<String> excludeBeans = new ArrayList<>(List.of("primaryDataSource"));
+}
@@ -0,0 +1,33 @@
+package jpa.queryDsl.config;
+
+import jpa.queryDsl.dto.TeamStatsMismatch;
+import jpa.queryDsl.service.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * team_stats 정합성 검사 : GET /actuator/teamstats
+ * 전체 재계산 : POST /actuator/teamstats (벌크 연산 이후 등)
+ */
+@Component
+@Endpoint(id = "teamstats")
+@RequiredArgsConstructor
+public class TeamStatsEndpoint {
+
+    private final TeamStatsService teamStatsService;
+
+    @ReadOperation
+    public List<TeamStatsMismatch> check() {
+        return teamStatsService.check();
+    }
+
+    @WriteOperation
+    public int rebuild() {
+        return teamStatsService.rebuild();
+    }
+}
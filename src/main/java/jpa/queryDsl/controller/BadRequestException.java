@@ -0,0 +1,14 @@
+package jpa.queryDsl.controller;
+
+/**
+ * 요청 파라미터 검증 실패 -> 400
+ * 메시지가 그대로 응답으로 나가므로 컨트롤러에서 만든 메시지만 담는다.
+ */
+public class BadRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
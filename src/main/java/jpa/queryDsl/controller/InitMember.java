@@ -2,6 +2,7 @@ package jpa.queryDsl.controller;
 
 import jpa.queryDsl.entity.Member;
 import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.service.MemberImportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -11,6 +12,8 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PrePersist;
+import java.util.List;
+import java.util.stream.IntStream;
 
 @Profile("local") // 로컬 yml 일 때 동작
 @Component
@@ -18,29 +21,30 @@ import javax.persistence.PrePersist;
 public class InitMember {
 
     private final InitMemberService initMemberService;
+    private final MemberImportService memberImportService;
 
     // 스프링 라이프 사이클 때문에 @PostContruct와 @Transactional은 동시에 사용 불가
     @PostConstruct
     public void init(){
-        initMemberService.init();
+        List<Team> teams = initMemberService.init();
+        memberImportService.importMembers(IntStream.range(0, 100)
+                .mapToObj(i -> new Member("member" + i, i, teams.get(i % 2))));
     }
 
     @Component
     static class InitMemberService{
         @PersistenceContext private EntityManager em;
 
+        // 회원은 MemberImportService가 배치로 저장하기 때문에 팀만 먼저 저장
         @Transactional
-        public void init(){
+        public List<Team> init(){
             Team teamA = new Team("teamA");
             Team teamB = new Team("teamB");
 
             em.persist(teamA);
             em.persist(teamB);
 
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
+            return List.of(teamA, teamB);
         }
     }
 
@@ -1,25 +1,49 @@
 package jpa.queryDsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpa.queryDsl.config.MemberSearchExecutorProperties;
 import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchBatchResult;
 import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.dto.SliceResponse;
 import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.InvalidCursorException;
+import jpa.queryDsl.repository.MemberCursor;
 import jpa.queryDsl.repository.MemberJpaRepository;
 import jpa.queryDsl.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_SLICE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberSearchExecutorProperties executorProperties;
 
     // @RequestParam을 안해도 url 파라미터로 넘오는 값이 SearchCond의 필드명에 맞게 들어간다.
     @GetMapping("/v1/members")
@@ -32,4 +56,86 @@ public class MemberController {
         return memberRepository.searchPageComplex(searchCond, pageable);
     }
 
+    // 여러 검색 조건을 요청 한 번으로 -> 나이 범위가 같은 조건끼리 쿼리 한 번
+    @PostMapping("/v1/members/batch")
+    public List<SearchBatchResult> searchMemberV1Batch(@RequestBody List<SearchCond> conds){
+        if (conds.isEmpty() || conds.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("conds size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        List<List<MemberTeamDto>> results = memberJpaRepository.searchByWhereBatch(conds);
+
+        List<SearchBatchResult> response = new ArrayList<>();
+        for (int i = 0; i < conds.size(); i++) {
+            response.add(new SearchBatchResult(conds.get(i), results.get(i)));
+        }
+        return response;
+    }
+
+    // 비동기 : 요청 스레드는 바로 반환되고 쿼리는 memberSearchExecutor에서 실행된다.
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(SearchCond searchCond){
+        return memberRepository.searchAsync(searchCond)
+                .orTimeout(executorProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // 컨텐츠, 카운트 쿼리를 동시에 실행
+    @GetMapping("/v2/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2Async(SearchCond searchCond, Pageable pageable){
+        return memberRepository.searchPageComplexAsync(searchCond, pageable)
+                .orTimeout(executorProperties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // 무한 스크롤용 : 응답의 nextCursor를 다음 요청의 cursor로 넘긴다.
+    @GetMapping("/v3/members")
+    public SliceResponse<MemberTeamDto> searchMemberV3(SearchCond searchCond,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int size){
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new BadRequestException("size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+        Slice<MemberTeamDto> slice = memberRepository.searchSlice(searchCond, cursor, size);
+
+        List<MemberTeamDto> content = slice.getContent();
+        String nextCursor = slice.hasNext()
+                ? MemberCursor.encode(content.get(content.size() - 1).getMemberId())
+                : null;
+        return new SliceResponse<>(content, slice.hasNext(), nextCursor);
+    }
+
+    // 조건이 없으면 전체 회원이 나가기 때문에 List로 모으지 않고 스트리밍으로 내려준다. format : ndjson(기본), csv
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMemberV1(SearchCond searchCond,
+                                                                @RequestParam(defaultValue = "ndjson") String format){
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new BadRequestException("format must be ndjson or csv");
+        }
+
+        StreamingResponseBody body = out -> {
+            MemberExportWriter writer = csv
+                    ? MemberExportWriter.csv(out)
+                    : MemberExportWriter.ndjson(objectMapper, out);
+            memberJpaRepository.streamByWhere(searchCond, writer::write);
+            writer.finish();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? MemberExportWriter.CSV : MemberExportWriter.NDJSON)
+                .body(body);
+    }
+
+    // 검증에서 직접 던진 예외만 400으로 보낸다. 그 밖의 IllegalArgumentException은 서버 오류다.
+    @ExceptionHandler({BadRequestException.class, InvalidCursorException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(RuntimeException e){
+        return e.getMessage();
+    }
+
+    // 검색 풀이 가득 찼거나 시간 안에 끝나지 않으면 바로 503으로 돌려보낸다.
+    @ExceptionHandler({TaskRejectedException.class, TimeoutException.class})
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String unavailable(Exception e){
+        return "member search is busy, retry later";
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package jpa.queryDsl.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jpa.queryDsl.dto.MemberTeamDto;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 회원 export 응답을 한 줄씩 쓰는 writer
+ * 버퍼가 차면 바로 응답으로 내보내기 때문에 전체 결과를 메모리에 쌓지 않는다.
+ */
+abstract class MemberExportWriter {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    abstract void write(MemberTeamDto dto);
+
+    abstract void finish() throws IOException;
+
+    static MemberExportWriter ndjson(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        SequenceWriter sequenceWriter = objectMapper.writerFor(MemberTeamDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+
+        return new MemberExportWriter() {
+            private boolean written;
+
+            @Override
+            void write(MemberTeamDto dto) {
+                try {
+                    sequenceWriter.write(dto);
+                    written = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            void finish() throws IOException {
+                sequenceWriter.close();
+                if (written) {
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        };
+    }
+
+    static MemberExportWriter csv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("memberId,username,age,teamId,teamName\n");
+
+        return new MemberExportWriter() {
+            @Override
+            void write(MemberTeamDto dto) {
+                try {
+                    writer.write(String.valueOf(dto.getMemberId()));
+                    writer.write(',');
+                    writeText(dto.getUsername());
+                    writer.write(',');
+                    writer.write(Integer.toString(dto.getAge()));
+                    writer.write(',');
+                    if (dto.getTeamId() != null) {
+                        writer.write(dto.getTeamId().toString());
+                    }
+                    writer.write(',');
+                    writeText(dto.getTeamName());
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // 쉼표, 따옴표, 줄바꿈이 있으면 따옴표로 감싸고 안의 따옴표는 두 번 쓴다.
+            private void writeText(String value) throws IOException {
+                if (value == null) {
+                    return;
+                }
+                if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                    writer.write(value);
+                    return;
+                }
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+
+            @Override
+            void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package jpa.queryDsl.controller;
+
+import jpa.queryDsl.dto.TeamStatsDto;
+import jpa.queryDsl.repository.TeamStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsRepository teamStatsRepository;
+
+    // 팀별 회원 수, 평균/최소/최대 나이 -> team_stats 요약 테이블에서 읽는다.
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats(){
+        return teamStatsRepository.findAll();
+    }
+}
@@ -0,0 +1,75 @@
+package jpa.queryDsl.dto;
+
+import java.util.Arrays;
+
+/**
+ * MemberTeamDto 목록을 컬럼별 배열로 (row마다 객체를 만들지 않는다)
+ * 팀이 없는 회원은 teamId = NO_TEAM, teamName = null
+ */
+public class MemberTeamColumns {
+
+    public static final long NO_TEAM = -1L;
+
+    private int size;
+    private long[] memberIds;
+    private String[] usernames;
+    private int[] ages;
+    private long[] teamIds;
+    private String[] teamNames;
+
+    public MemberTeamColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        memberIds = new long[capacity];
+        usernames = new String[capacity];
+        ages = new int[capacity];
+        teamIds = new long[capacity];
+        teamNames = new String[capacity];
+    }
+
+    public void add(long memberId, String username, int age, long teamId, String teamName) {
+        if (size == memberIds.length) {
+            int capacity = size * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            teamNames = Arrays.copyOf(teamNames, capacity);
+        }
+        memberIds[size] = memberId;
+        usernames[size] = username;
+        ages[size] = age;
+        teamIds[size] = teamId;
+        teamNames[size] = teamName;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long memberId(int index) {
+        return memberIds[index];
+    }
+
+    public String username(int index) {
+        return usernames[index];
+    }
+
+    public int age(int index) {
+        return ages[index];
+    }
+
+    public long teamId(int index) {
+        return teamIds[index];
+    }
+
+    public String teamName(int index) {
+        return teamNames[index];
+    }
+
+    // 필요한 row만 DTO로
+    public MemberTeamDto toDto(int index) {
+        return new MemberTeamDto(memberIds[index], usernames[index], ages[index],
+                teamIds[index] == NO_TEAM ? null : teamIds[index], teamNames[index]);
+    }
+}
@@ -0,0 +1,14 @@
+package jpa.queryDsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SearchBatchResult {
+
+    private SearchCond cond; // 요청 순서대로, 같은 조건이 여러 번 오면 결과도 여러 번
+    private List<MemberTeamDto> members;
+}
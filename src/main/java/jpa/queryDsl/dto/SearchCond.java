@@ -2,8 +2,10 @@ package jpa.queryDsl.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class SearchCond {
     // 사이트로부터 검색 조건으로 넘어옴
@@ -0,0 +1,15 @@
+package jpa.queryDsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class SliceResponse<T> {
+
+    private List<T> content;
+    private boolean hasNext;
+    private String nextCursor; // 다음 페이지 요청 시 그대로 넘겨주면 된다. 마지막 페이지면 null
+}
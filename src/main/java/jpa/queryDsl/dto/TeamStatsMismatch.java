@@ -0,0 +1,13 @@
+package jpa.queryDsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TeamStatsMismatch {
+
+    private Long teamId;
+    private TeamStatsDto expected; // member 테이블에서 다시 계산한 값, 팀이 없으면 null
+    private TeamStatsDto actual;   // team_stats 값, 행이 없으면 null
+}
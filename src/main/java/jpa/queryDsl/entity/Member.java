@@ -1,16 +1,39 @@
 package jpa.queryDsl.entity;
 
+import jpa.queryDsl.config.SecondLevelCacheProperties;
+import jpa.queryDsl.repository.MemberCountCacheListener;
+import jpa.queryDsl.repository.MemberSearchIndexListener;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+// search 조건 모양별 인덱스 (MemberSearchPlanCheck가 시작할 때 실행 계획 확인)
+// 팀 이름 -> idx_team_name으로 팀을 찾고 (team, age), 이름 -> (username, age), 나이만 -> (age)
+@Table(indexes = {
+        @Index(name = "idx_member_team_age", columnList = "team, age"),
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
+@EntityListeners({MemberCountCacheListener.class, MemberSearchIndexListener.class})
+// Team.members 컬렉션 캐시는 id만 담고 있어서 Member도 캐시해야 컬렉션 캐시 hit 시 회원을 다시 조회하지 않는다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheProperties.MEMBER)
+// 조회할 때 고르는 fetch 계획 -> MemberFetchPlan
+@NamedEntityGraph(name = "Member.team", attributeNodes = @NamedAttributeNode("team"))
+@NamedEntityGraph(name = "Member.team.members",
+        attributeNodes = @NamedAttributeNode(value = "team", subgraph = "team.members"),
+        subgraphs = @NamedSubgraph(name = "team.members", attributeNodes = @NamedAttributeNode("members")))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    // pooled 옵티마이저 : 시퀀스를 한 번 조회하면 50개의 id를 메모리에서 할당 -> 대량 insert 시 시퀀스 왕복 감소
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
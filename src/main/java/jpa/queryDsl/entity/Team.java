@@ -1,12 +1,20 @@
 package jpa.queryDsl.entity;
 
+import jpa.queryDsl.config.SecondLevelCacheProperties;
+import jpa.queryDsl.repository.MemberSearchIndexListener;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@EntityListeners(MemberSearchIndexListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheProperties.TEAM) // member.cache.enabled=true일 때만 사용
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
@@ -18,6 +26,8 @@ public class Team {
 
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheProperties.TEAM_MEMBERS) // 회원 id 목록만 캐시
+    @BatchSize(size = 100) // 여러 팀의 members를 where team in (?, ?, ..)으로 한 번에 초기화 -> N+1 방지
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,34 @@
+package jpa.queryDsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * 팀별 회원 통계 요약 테이블 (회원 수, 나이 합/최소/최대)
+ * 회원 insert/update/delete 시 TeamStatsEventListener가 커밋 직전에 증감분만 반영한다. -> 엔티티로는 읽기만
+ */
+@Entity
+@Immutable
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin; // 회원이 없으면 null
+    private Integer ageMax;
+}
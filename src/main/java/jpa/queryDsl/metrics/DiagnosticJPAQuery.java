@@ -0,0 +1,80 @@
+package jpa.queryDsl.metrics;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 실행 시간, row 수를 QueryDiagnostics에 기록하는 JPAQuery
+ * 쿼리 모양은 실행할 때 만든 JPQL(logQuery로 넘어옴)이라 따로 직렬화하지 않는다.
+ * iterate(), stream()은 row 수를 알 수 없어서 기록하지 않는다.
+ * fetchCount(), fetchResults()는 QueryDSL에서 deprecated지만 남아 있는 호출도 기록한다.
+ */
+public class DiagnosticJPAQuery<T> extends JPAQuery<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final QueryDiagnostics diagnostics;
+    private String jpql;
+    private boolean measuring;
+
+    public DiagnosticJPAQuery(EntityManager em, QueryDiagnostics diagnostics) {
+        super(em);
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public List<T> fetch() {
+        return measure(super::fetch, List::size);
+    }
+
+    @Override
+    public T fetchOne() throws NonUniqueResultException {
+        return measure(super::fetchOne, result -> result == null ? 0 : 1);
+    }
+
+    @Override
+    @Deprecated
+    public long fetchCount() {
+        return measure(super::fetchCount, count -> 1);
+    }
+
+    @Override
+    @Deprecated
+    public QueryResults<T> fetchResults() {
+        return measure(super::fetchResults, results -> results.getResults().size());
+    }
+
+    @Override
+    protected void logQuery(String queryString) {
+        jpql = queryString;
+        super.logQuery(queryString);
+    }
+
+    // fetchResults 안에서 부르는 fetchCount 같은 중첩 호출은 바깥에서 한 번만 기록
+    private <R> R measure(Supplier<R> query, ToLongFunction<R> rows) {
+        if (measuring) {
+            return query.get();
+        }
+        measuring = true;
+        long start = System.nanoTime();
+        R result = null;
+        boolean success = false;
+        try {
+            result = query.get();
+            success = true;
+            return result;
+        } finally {
+            measuring = false;
+            if (jpql != null) {
+                diagnostics.record(jpql, QueryOrigin.get(), System.nanoTime() - start,
+                        success ? rows.applyAsLong(result) : -1, success);
+            }
+        }
+    }
+}
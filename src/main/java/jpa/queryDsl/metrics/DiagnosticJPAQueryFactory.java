@@ -0,0 +1,24 @@
+package jpa.queryDsl.metrics;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+// select / selectFrom / from 모두 query()로 만들어지므로 여기서 DiagnosticJPAQuery로 바꾼다.
+public class DiagnosticJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final QueryDiagnostics diagnostics;
+
+    public DiagnosticJPAQueryFactory(EntityManager entityManager, QueryDiagnostics diagnostics) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new DiagnosticJPAQuery<Void>(entityManager, diagnostics);
+    }
+}
@@ -0,0 +1,166 @@
+package jpa.queryDsl.metrics;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * JPAQueryFactory로 실행한 쿼리의 모양(JPQL)별 실행 횟수, 시간(평균/최대), row 수
+ * slow-query-threshold보다 느리거나 max-rows보다 많이 가져온 쿼리는 실행한 레포지토리 메서드와 함께 최근 slow-log-size개를 남긴다.
+ * 쿼리마다 nanoTime 두 번 + 카운터 증가라서 운영에서도 켜둘 수 있다. -> GET /actuator/querydiagnostics
+ * 모양이 max-shapes개를 넘으면(문자열을 이어붙인 JPQL 등) 나머지는 OTHER 하나로 모은다.
+ */
+@Slf4j
+@Component
+public class QueryDiagnostics {
+
+    public static final String OTHER = "(other)";
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    @Value("${member.diagnostics.slow-query-threshold:500ms}")
+    private Duration slowQueryThreshold;
+
+    @Value("${member.diagnostics.max-rows:10000}")
+    private long maxRows;
+
+    @Value("${member.diagnostics.slow-log-size:100}")
+    private int slowLogSize;
+
+    @Value("${member.diagnostics.max-shapes:1000}")
+    private int maxShapes;
+
+    public void record(String jpql, String origin, long elapsedNanos, long rows, boolean success) {
+        ShapeStats stats = shapes.get(jpql);
+        if (stats == null) {
+            stats = shapes.size() < maxShapes ? shapes.computeIfAbsent(jpql, ShapeStats::new)
+                    : shapes.computeIfAbsent(OTHER, ShapeStats::new);
+        }
+        stats.record(elapsedNanos, rows, success);
+
+        boolean slow = elapsedNanos > slowQueryThreshold.toNanos();
+        boolean large = rows > maxRows;
+        if (slow || large) {
+            SlowQuery slowQuery = new SlowQuery(Instant.now(), origin, jpql, elapsedNanos / 1_000_000, rows, slow ? "slow" : "rows");
+            log.warn("query flagged reason={} origin={} elapsed={}ms rows={} jpql={}",
+                    slowQuery.getReason(), origin, slowQuery.getElapsedMs(), rows, jpql);
+            synchronized (slowQueries) {
+                slowQueries.addFirst(slowQuery);
+                if (slowQueries.size() > slowLogSize) {
+                    slowQueries.removeLast();
+                }
+            }
+        }
+    }
+
+    // 총 시간이 긴 순서
+    public List<ShapeStats> shapes() {
+        return shapes.values().stream()
+                .sorted(Comparator.comparingLong(ShapeStats::getTotalMs).reversed())
+                .collect(Collectors.toList());
+    }
+
+    // 최근 것부터
+    public List<SlowQuery> slowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public void reset() {
+        shapes.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    public static class ShapeStats {
+        @Getter private final String jpql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxRows = new LongAccumulator(Math::max, 0);
+
+        private ShapeStats(String jpql) {
+            this.jpql = jpql;
+        }
+
+        private void record(long elapsedNanos, long rowCount, boolean success) {
+            count.increment();
+            if (!success) {
+                errors.increment();
+            }
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulate(elapsedNanos);
+            if (rowCount >= 0) {
+                rows.add(rowCount);
+                maxRows.accumulate(rowCount);
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getTotalMs() {
+            return totalNanos.sum() / 1_000_000;
+        }
+
+        public double getAvgMs() {
+            long executions = count.sum();
+            return executions == 0 ? 0 : totalNanos.sum() / 1_000_000d / executions;
+        }
+
+        public double getMaxMs() {
+            return maxNanos.get() / 1_000_000d;
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public long getMaxRows() {
+            return maxRows.get();
+        }
+    }
+
+    @Getter
+    public static class SlowQuery {
+        private final Instant time;
+        private final String origin;
+        private final String jpql;
+        private final long elapsedMs;
+        private final long rows;
+        private final String reason; // slow : 시간 초과, rows : row 수 초과
+
+        private SlowQuery(Instant time, String origin, String jpql, long elapsedMs, long rows, String reason) {
+            this.time = time;
+            this.origin = origin;
+            this.jpql = jpql;
+            this.elapsedMs = elapsedMs;
+            this.rows = rows;
+            this.reason = reason;
+        }
+    }
+}
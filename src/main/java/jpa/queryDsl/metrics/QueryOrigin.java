@@ -0,0 +1,35 @@
+package jpa.queryDsl.metrics;
+
+/**
+ * 지금 실행 중인 레포지토리 메서드 (RepositoryMetricsAspect가 설정) -> 느린 쿼리가 어디서 나왔는지 기록
+ * 레포지토리 안에서 다른 레포지토리를 부르면 안쪽 메서드가 보이고, 끝나면 바깥 메서드로 되돌린다.
+ */
+public final class QueryOrigin {
+
+    public static final String UNKNOWN = "-";
+
+    private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+    private QueryOrigin() {
+    }
+
+    public static String get() {
+        String origin = current.get();
+        return origin == null ? UNKNOWN : origin;
+    }
+
+    // 이전 값을 돌려주니 finally에서 restore(previous)
+    public static String enter(String origin) {
+        String previous = current.get();
+        current.set(origin);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+}
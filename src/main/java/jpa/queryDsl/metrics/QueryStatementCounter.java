@@ -0,0 +1,22 @@
+package jpa.queryDsl.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 스레드별로 실행한 SQL 개수를 센다. (hibernate.session_factory.statement_inspector)
+ * 레포지토리 메서드 호출 전후 값의 차이로 호출 한 번에 나간 SQL 수를 구한다.
+ */
+public class QueryStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
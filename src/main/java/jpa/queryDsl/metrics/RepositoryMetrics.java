@@ -0,0 +1,148 @@
+package jpa.queryDsl.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpa.queryDsl.dto.SearchCond;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 레포지토리 쿼리 메트릭 (/actuator/prometheus)
+ * - repository.query : 실행 시간
+ * - repository.query.rows : 반환 row 수
+ * - repository.query.statements : 호출 한 번에 실행된 SQL 수
+ * - repository.query.count : 페이징 카운트 쿼리 요청(requested) / 생략(skipped)
+ * 태그는 파라미터 값이 아닌 쿼리 모양(SearchCond에서 값이 있는 필드)으로 붙여서 태그 종류가 늘어나지 않게 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetrics {
+
+    public static final String NO_SHAPE = "-";
+
+    private final MeterRegistry registry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    // 값이 있는 조건 이름을 + 로 연결, 조건이 하나도 없으면 none
+    public static String shapeOf(SearchCond searchCond) {
+        if (searchCond == null) {
+            return NO_SHAPE;
+        }
+        StringBuilder shape = new StringBuilder();
+        if (StringUtils.hasText(searchCond.getUsername())) shape.append("username+");
+        if (StringUtils.hasText(searchCond.getTeamName())) shape.append("teamName+");
+        if (searchCond.getAgeGoe() != null) shape.append("ageGoe+");
+        if (searchCond.getAgeLoe() != null) shape.append("ageLoe+");
+        return shape.length() == 0 ? "none" : shape.substring(0, shape.length() - 1);
+    }
+
+    public void record(String repository, String method, String shape, boolean success,
+                       long elapsedNanos, long rows, long statements) {
+        Meters meters = meters(repository, method, shape);
+        (success ? meters.success : meters.error).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            meters.rows.record(rows);
+        }
+        meters.statements.record(statements);
+    }
+
+    /**
+     * 다른 스레드에서 실행되는 작업(비동기 검색)은 aspect 대신 작업 안에서 기록한다.
+     * 작업 스레드에 QueryOrigin을 설정하고, 실행 시간 / row 수 / SQL 수는 그 스레드 기준으로 센다.
+     */
+    public <T> Supplier<T> recorded(String repository, String method, String shape, Supplier<T> task) {
+        return () -> {
+            long statementsBefore = QueryStatementCounter.current();
+            String previousOrigin = QueryOrigin.enter(repository + "." + method);
+            long start = System.nanoTime();
+            boolean success = false;
+            T result = null;
+            try {
+                result = task.get();
+                success = true;
+                return result;
+            } finally {
+                QueryOrigin.restore(previousOrigin);
+                record(repository, method, shape, success, System.nanoTime() - start,
+                        rowsOf(result), QueryStatementCounter.current() - statementsBefore);
+            }
+        };
+    }
+
+    // 반환 row 수를 알 수 없으면(void, 스트림 등) -1
+    public static long rowsOf(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) { // Page 포함
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+
+    // PageableExecutionUtils.getPage와 같고, 카운트 쿼리를 실행했는지 기록한다.
+    public <T> Page<T> page(String repository, String shape, List<T> content, Pageable pageable, LongSupplier total) {
+        boolean[] requested = {false};
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            requested[0] = true;
+            return total.getAsLong();
+        });
+        Counter.builder("repository.query.count")
+                .tag("repository", repository)
+                .tag("shape", shape)
+                .tag("outcome", requested[0] ? "requested" : "skipped")
+                .register(registry)
+                .increment();
+        return page;
+    }
+
+    private Meters meters(String repository, String method, String shape) {
+        return meters.computeIfAbsent(repository + '.' + method + '#' + shape,
+                key -> new Meters(repository, method, shape));
+    }
+
+    private class Meters {
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+
+        private Meters(String repository, String method, String shape) {
+            this.success = timer(repository, method, shape, "success");
+            this.error = timer(repository, method, shape, "error");
+            this.rows = DistributionSummary.builder("repository.query.rows")
+                    .tags("repository", repository, "method", method, "shape", shape)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.statements = DistributionSummary.builder("repository.query.statements")
+                    .tags("repository", repository, "method", method, "shape", shape)
+                    .register(registry);
+        }
+
+        private Timer timer(String repository, String method, String shape, String outcome) {
+            return Timer.builder("repository.query")
+                    .tags("repository", repository, "method", method, "shape", shape, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
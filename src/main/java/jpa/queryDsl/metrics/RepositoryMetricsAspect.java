@@ -0,0 +1,58 @@
+package jpa.queryDsl.metrics;
+
+import jpa.queryDsl.dto.SearchCond;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * MemberJpaRepository, MemberRepositoryImpl, Querydsl4RepositorySupport를 상속한 레포지토리의 public 메서드 실행을 기록한다.
+ * 실행 중에는 QueryOrigin에 "레포지토리.메서드"를 넣어서 QueryDiagnostics가 쿼리를 부른 곳을 알 수 있게 한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final RepositoryMetrics metrics;
+
+    @Around("execution(public * jpa.queryDsl.repository.MemberJpaRepository.*(..))"
+            + " || execution(public * jpa.queryDsl.repository.MemberRepositoryImpl.*(..))"
+            + " || execution(public * jpa.queryDsl.repository.support.Querydsl4RepositorySupport+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        String shape = RepositoryMetrics.shapeOf(findSearchCond(joinPoint.getArgs()));
+
+        long statementsBefore = QueryStatementCounter.current();
+        String previousOrigin = QueryOrigin.enter(repository + "." + method);
+        long start = System.nanoTime();
+        boolean success = false;
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            QueryOrigin.restore(previousOrigin);
+            // 비동기 메서드는 제출만 하고 바로 반환되므로 여기서는 기록하지 않는다. (RepositoryMetrics.recorded로 작업 안에서 기록)
+            if (!(result instanceof CompletionStage)) {
+                metrics.record(repository, method, shape, success, System.nanoTime() - start,
+                        RepositoryMetrics.rowsOf(result), QueryStatementCounter.current() - statementsBefore);
+            }
+        }
+    }
+
+    private SearchCond findSearchCond(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof SearchCond) {
+                return (SearchCond) arg;
+            }
+        }
+        return null;
+    }
+}
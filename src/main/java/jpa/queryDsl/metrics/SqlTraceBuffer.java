@@ -0,0 +1,57 @@
+package jpa.queryDsl.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 최근 N개만 남기는 링 버퍼 (락 없음)
+ * 쓰기는 커서 getAndIncrement + 슬롯 set 뿐이라 여러 스레드가 동시에 써도 막히지 않고, 가득 차면 오래된 것부터 덮어쓴다.
+ * snapshot은 쓰는 중에 읽으면 순서가 조금 어긋나거나 방금 덮인 항목이 섞일 수 있다. (모니터링 용도라 허용)
+ */
+public class SqlTraceBuffer<T> {
+
+    private final AtomicReferenceArray<T> entries;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public SqlTraceBuffer(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.entries = new AtomicReferenceArray<>(size <= 1 ? 1 : capacity);
+        this.mask = entries.length() - 1;
+    }
+
+    public void add(T entry) {
+        entries.set((int) (cursor.getAndIncrement() & mask), entry);
+    }
+
+    public int capacity() {
+        return entries.length();
+    }
+
+    // 지금까지 add된 수 (덮어쓴 것 포함)
+    public long added() {
+        return cursor.get();
+    }
+
+    // 최근 것부터
+    public List<T> snapshot() {
+        long end = cursor.get();
+        int size = (int) Math.min(end, entries.length());
+        List<T> result = new ArrayList<>(size);
+        for (long i = end - 1; i >= end - size; i--) {
+            T entry = entries.get((int) (i & mask));
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package jpa.queryDsl.metrics;
+
+import jpa.queryDsl.config.SqlTraceProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 샘플링 SQL 추적 (p6spy 대체)
+ * 모든 문장은 실행 시간만 재고(nanoTime 두 번 + 카운터), sample-rate 비율로 뽑힌 문장만 파라미터를 모아서 recent 버퍼와 debug 로그에 남긴다.
+ * 뽑히지 않은 문장은 문자열을 만들지 않는다. slow-threshold를 넘으면 샘플링과 상관없이 slow 버퍼 + warn 로그 (파라미터는 뽑힌 경우만)
+ * 샘플 비율, 기준 시간은 실행 중에 바꿀 수 있다. -> POST /actuator/sqltrace
+ */
+@Slf4j
+public class SqlTracer {
+
+    private final SqlTraceBuffer<Trace> recent;
+    private final SqlTraceBuffer<Trace> slow;
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder sampled = new LongAdder();
+
+    private volatile double sampleRate;
+    private volatile long slowThresholdNanos;
+
+    public SqlTracer(SqlTraceProperties properties) {
+        this.recent = new SqlTraceBuffer<>(properties.getBufferSize());
+        this.slow = new SqlTraceBuffer<>(properties.getBufferSize());
+        setSampleRate(properties.getSampleRate());
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+    }
+
+    // 문장을 준비할 때 한 번 정한다. (0, 1이면 난수 없이)
+    public boolean sample() {
+        double rate = sampleRate;
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    // params : 뽑히지 않았으면 null
+    public void record(String sql, Object[] params, long elapsedNanos, int batchSize, boolean success) {
+        statements.increment();
+        boolean isSlow = elapsedNanos >= slowThresholdNanos;
+        if (params == null && !isSlow) {
+            return;
+        }
+
+        Trace trace = new Trace(Instant.now(), sql, params == null ? null : Arrays.asList(params),
+                elapsedNanos / 1_000, batchSize, success);
+        if (params != null) {
+            sampled.increment();
+            recent.add(trace);
+            if (log.isDebugEnabled()) {
+                log.debug("{}us batch={} {} {}", trace.getElapsedMicros(), batchSize, sql, trace.getParams());
+            }
+        }
+        if (isSlow) {
+            slow.add(trace);
+            log.warn("slow statement elapsed={}ms batch={} sql={} params={}",
+                    elapsedNanos / 1_000_000, batchSize, sql, trace.getParams());
+        }
+    }
+
+    public List<Trace> recent() {
+        return recent.snapshot();
+    }
+
+    public List<Trace> slow() {
+        return slow.snapshot();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public long getSlowThresholdMs() {
+        return slowThresholdNanos / 1_000_000;
+    }
+
+    public void setSlowThresholdMs(long slowThresholdMs) {
+        this.slowThresholdNanos = slowThresholdMs * 1_000_000;
+    }
+
+    public void reset() {
+        recent.clear();
+        slow.clear();
+        statements.reset();
+        sampled.reset();
+    }
+
+    @Getter
+    public static class Trace {
+        private final Instant time;
+        private final String sql;
+        private final List<Object> params; // 샘플링되지 않은 slow 문장은 null
+        private final long elapsedMicros;
+        private final int batchSize; // executeBatch면 addBatch 수, 아니면 1
+        private final boolean success;
+
+        private Trace(Instant time, String sql, List<Object> params, long elapsedMicros, int batchSize, boolean success) {
+            this.time = time;
+            this.sql = sql;
+            this.params = params;
+            this.elapsedMicros = elapsedMicros;
+            this.batchSize = batchSize;
+            this.success = success;
+        }
+    }
+}
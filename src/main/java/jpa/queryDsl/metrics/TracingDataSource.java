@@ -0,0 +1,160 @@
+package jpa.queryDsl.metrics;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Connection / Statement를 감싸서 execute* 시간을 SqlTracer에 넘기는 DataSource
+ * 샘플링 여부는 문장을 준비할 때 정하고, 뽑힌 문장만 set* 파라미터를 모은다.
+ * 커넥션을 받을 때 아무것도 호출하지 않아서 LazyConnectionDataSourceProxy(ReplicaRoutingConfig)를 감싸도 라우팅이 그대로 동작한다.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    private final SqlTracer tracer;
+
+    public TracingDataSource(DataSource target, SqlTracer tracer) {
+        super(target);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return target;
+                case "prepareStatement":
+                    return wrap(TracingDataSource.invoke(target, method, args), PreparedStatement.class, (String) args[0]);
+                case "prepareCall":
+                    return wrap(TracingDataSource.invoke(target, method, args), CallableStatement.class, (String) args[0]);
+                case "createStatement":
+                    return wrap(TracingDataSource.invoke(target, method, args), Statement.class, null);
+                default:
+                    return TracingDataSource.invoke(target, method, args);
+            }
+        }
+
+        private Object wrap(Object statement, Class<? extends Statement> type, String sql) {
+            return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler((Statement) statement, sql, tracer.sample()));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final boolean sampled;
+        private String sql; // createStatement는 execute/addBatch 때 받는다.
+        private Object[] params;
+        private int paramCount;
+        private int batchSize;
+
+        private StatementHandler(Statement target, String sql, boolean sampled) {
+            this.target = target;
+            this.sql = sql;
+            this.sampled = sampled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args, name);
+            }
+            if (sampled && args != null && args.length >= 2 && args[0] instanceof Integer && name.startsWith("set")) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (args != null) {
+                    sql = (String) args[0];
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+            return TracingDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args, String name) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            boolean batch = name.endsWith("Batch");
+            boolean success = false;
+            long start = System.nanoTime();
+            try {
+                Object result = TracingDataSource.invoke(target, method, args);
+                success = true;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                tracer.record(sql, sampled ? capturedParams() : null, elapsed, batch ? batchSize : 1, success);
+                if (batch) {
+                    batchSize = 0;
+                }
+            }
+        }
+
+        // 배치면 마지막 addBatch의 파라미터만 남는다.
+        private void bind(int index, Object value) {
+            if (params == null) {
+                params = new Object[Math.max(index, 8)];
+            } else if (params.length < index) {
+                params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+            }
+            params[index - 1] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+
+        private Object[] capturedParams() {
+            return params == null ? NO_PARAMS : Arrays.copyOf(params, paramCount);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package jpa.queryDsl.repository;
+
+/**
+ * MemberCursor 형식이 맞지 않을 때
+ * IllegalArgumentException이면 리포지토리 예외 변환에서 InvalidDataAccessApiUsageException으로 바뀌므로 따로 둔다.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
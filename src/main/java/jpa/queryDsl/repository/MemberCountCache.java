@@ -0,0 +1,69 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.repository.support.CountCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.function.LongSupplier;
+
+/**
+ * searchPageComplex 카운트 캐시
+ * Member가 저장/수정/삭제되면 MemberCountCacheListener가 커밋 후에 비운다. (flush 시점에 비우면 커밋 전 데이터로 다시 채워진다.)
+ * Member를 변경한 트랜잭션 안에서의 카운트는 캐시를 읽지도 저장하지도 않는다. (롤백될 수 있는 값을 남에게 보여주지 않게)
+ * 벌크 연산(update, delete execute)은 엔티티 리스너를 거치지 않기 때문에 호출한 쪽에서 invalidateAll()을 불러줘야 한다. (MemberBulkService는 chunk마다 비움)
+ */
+@Component
+public class MemberCountCache {
+
+    private final CountCache<SearchCond> cache;
+
+    public MemberCountCache(MemberCountProperties properties) {
+        this.cache = new CountCache<>(properties.getCacheTtl(), properties.getCacheMaxSize());
+    }
+
+    public long get(SearchCond searchCond, LongSupplier counter) {
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return counter.getAsLong();
+        }
+        return cache.get(normalize(searchCond), counter);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // 트랜잭션 안이면 커밋 후에 한 번 비우고, 트랜잭션이 끝날 때까지 이 트랜잭션의 카운트는 캐시를 거치지 않는다.
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MemberCountCache.this);
+            }
+        });
+    }
+
+    // 검색 조건에서 빈 문자열은 조건 없음(null)과 같은 쿼리가 되므로 같은 키로 맞춘다.
+    static SearchCond normalize(SearchCond searchCond) {
+        return new SearchCond(
+                StringUtils.hasText(searchCond.getUsername()) ? searchCond.getUsername() : null,
+                StringUtils.hasText(searchCond.getTeamName()) ? searchCond.getTeamName() : null,
+                searchCond.getAgeGoe(),
+                searchCond.getAgeLoe());
+    }
+}
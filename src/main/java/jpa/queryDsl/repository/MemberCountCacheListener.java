@@ -0,0 +1,22 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.entity.Member;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 하이버네이트가 스프링 빈 컨테이너를 통해 생성하기 때문에 생성자 주입이 가능하다.
+@RequiredArgsConstructor
+public class MemberCountCacheListener {
+
+    private final MemberCountCache memberCountCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Member member) {
+        memberCountCache.invalidateAfterCommit();
+    }
+}
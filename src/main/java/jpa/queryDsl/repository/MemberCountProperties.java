@@ -0,0 +1,20 @@
+package jpa.queryDsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "member.count")
+@Getter @Setter
+public class MemberCountProperties {
+
+    private Duration cacheTtl = Duration.ofSeconds(30);
+    private int cacheMaxSize = 1000;
+
+    // 0이면 항상 정확한 카운트, 0보다 크면 결과가 이 값을 넘을 때 전체를 세지 않고 추정치(threshold + 1)를 돌려준다.
+    private long estimateThreshold = 0;
+}
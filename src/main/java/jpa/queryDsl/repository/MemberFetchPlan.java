@@ -0,0 +1,22 @@
+package jpa.queryDsl.repository;
+
+/**
+ * 회원 조회 시 함께 가져올 연관관계 (Member에 선언된 @NamedEntityGraph)
+ * NONE이면 연관관계는 지연 로딩 + default_batch_fetch_size 배치 조회로 가져온다.
+ */
+public enum MemberFetchPlan {
+
+    NONE(null),
+    TEAM("Member.team"),
+    TEAM_MEMBERS("Member.team.members");
+
+    private final String graphName;
+
+    MemberFetchPlan(String graphName) {
+        this.graphName = graphName;
+    }
+
+    public String getGraphName() {
+        return graphName;
+    }
+}
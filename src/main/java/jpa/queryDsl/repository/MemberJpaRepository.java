@@ -4,6 +4,7 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQueryFactory;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jpa.queryDsl.dto.MemberTeamDto;
 import jpa.queryDsl.dto.QMemberTeamDto;
@@ -12,22 +13,47 @@ import jpa.queryDsl.entity.Member;
 import jpa.queryDsl.entity.QMember;
 import jpa.queryDsl.entity.QTeam;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static jpa.queryDsl.entity.QMember.*;
 import static jpa.queryDsl.entity.QTeam.*;
 
+/**
+ * 조회 메서드는 읽기 전용 트랜잭션 -> replica 사용 (member.replica.enabled=true), 쓰기 메서드만 따로 @Transactional
+ * 읽기 전용 트랜잭션을 새로 시작하면 세션이 read-only + FlushMode.MANUAL이 되어서 스냅샷 복사와 flush 검사를 하지 않는다.
+ * 엔티티 조회(findAll, findByUsername...)는 읽기 전용 트랜잭션일 때만 READ_ONLY 힌트를 준다.
+ * 바깥 읽기/쓰기 트랜잭션에 참여하면 힌트 없이 조회한다. (같은 영속성 컨텍스트의 엔티티를 수정하면 반영되어야 한다.)
+ */
 @Repository
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+
+    @Value("${member.export.fetch-size:1000}")
+    private int exportFetchSize;
 //    private final JPQLQueryFactory queryFactory; // bean으로 등록 가능
 
 //    public MemberJpaRepository(EntityManager em) {
@@ -35,6 +61,7 @@ public class MemberJpaRepository {
 //        this.queryFactory = new JPAQueryFactory(em);
 //    }
 
+    @Transactional
     public void save(Member member){
         em.persist(member);
     }
@@ -44,21 +71,33 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findAll(){
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return em.createQuery("select m from Member m", Member.class)
+                .setHint(QueryHints.READ_ONLY, readOnly())
+                .getResultList();
     }
 
     public List<Member> findAllQueryDsl(){
-        return queryFactory.select(member).from(member).fetch();
+        return queryFactory.select(member).from(member)
+                .setHint(QueryHints.READ_ONLY, readOnly())
+                .fetch();
     }
 
     public List<Member> findByUsername(String username){
         return em.createQuery("select m from Member m where m.username = :username" )
                 .setParameter("username", username)
+                .setHint(QueryHints.READ_ONLY, readOnly())
                 .getResultList();
     }
 
     public List<Member> findByUsernameQueryDsl(String username){
-        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetch();
+        return queryFactory.selectFrom(member).where(member.username.eq(username))
+                .setHint(QueryHints.READ_ONLY, readOnly())
+                .fetch();
+    }
+
+    // 읽기 전용 트랜잭션이면 스냅샷 없이 읽는다.
+    private static boolean readOnly() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
     }
 
     public List<MemberTeamDto> searchByBuilder(SearchCond searchCond){
@@ -89,6 +128,54 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> searchByWhere(SearchCond searchCond){
+        return searchByWhereQuery(searchCond).fetch();
+    }
+
+    /**
+     * searchByWhere를 조건 여러 개에 대해 한 번에 실행한다. 결과는 conds 순서대로.
+     * 나이 범위(ageGoe, ageLoe)가 같은 조건끼리 묶어서 범위마다 쿼리 한 번만 실행한다.
+     * -> where (username in (..) or team.name in (..)) and 나이 범위
+     * 가져온 row는 메모리에서 조건별로 다시 나눈다. 이름 조건이 없는 조건이 섞여 있으면 그 범위는 이름 필터 없이 조회한다.
+     * 이름 비교는 자바 equals라서 대소문자를 구분하지 않는 DB collation에선 searchByWhere와 결과가 다를 수 있다.
+     */
+    public List<List<MemberTeamDto>> searchByWhereBatch(List<SearchCond> conds){
+        Map<List<Integer>, List<SearchCond>> byAgeRange = new LinkedHashMap<>();
+        for (SearchCond cond : new LinkedHashSet<>(conds)) {
+            byAgeRange.computeIfAbsent(Arrays.asList(cond.getAgeGoe(), cond.getAgeLoe()), range -> new ArrayList<>())
+                    .add(cond);
+        }
+
+        Map<SearchCond, List<MemberTeamDto>> results = new HashMap<>();
+        for (List<SearchCond> group : byAgeRange.values()) {
+            List<MemberTeamDto> rows = searchByWhereGroupQuery(group).fetch();
+            for (SearchCond cond : group) {
+                results.put(cond, rows.stream()
+                        .filter(row -> matchesName(cond, row))
+                        .collect(Collectors.toList()));
+            }
+        }
+
+        return conds.stream()
+                .map(results::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * searchByWhere와 같은 조건을 한 번에 List로 올리지 않고 한 row씩 흘려보낸다.
+     * forward-only 커서(getResultStream)와 fetch size로 DB에서 조금씩 읽기 때문에 결과 크기와 상관없이 메모리 사용량이 일정하다.
+     * 스트림을 다 읽을 때까지 커넥션을 잡고 있어야 해서 트랜잭션 안에서 consumer를 실행한다.
+     */
+    @Transactional(readOnly = true)
+    public void streamByWhere(SearchCond searchCond, Consumer<MemberTeamDto> consumer){
+        try (Stream<MemberTeamDto> stream = searchByWhereQuery(searchCond)
+                .setHint(QueryHints.FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .stream()) {
+            stream.forEach(consumer);
+        }
+    }
+
+    private JPAQuery<MemberTeamDto> searchByWhereQuery(SearchCond searchCond){
         return queryFactory
                 .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
                 .from(member)
@@ -98,13 +185,58 @@ public class MemberJpaRepository {
 //                        teamNameEq(searchCond.getTeamName()),
                         //                        userAgeGoe(searchCond.getAgeGoe()),
 //                        userAgeLoe(searchCond.getAgeLoe())
-                        userNameEq(searchCond.getUsername())
-                                .or(teamNameEq(searchCond.getTeamName())),
+                        userNameOrTeamNameEq(searchCond.getUsername(), searchCond.getTeamName()),
                         userAgeGoe(searchCond.getAgeGoe()),
                         userAgeLoe(searchCond.getAgeLoe())
 //                        ageBetween(searchCond.getAgeGoe(), searchCond.getAgeLoe()) // 만약 getAgeGoe()나 getAgeLoe() 중 하나라도 null이면 오류 발생
-                )
-                .fetch();
+                );
+    }
+
+    // 같은 나이 범위의 조건들 -> 이름 조건은 in으로 합친다.
+    private JPAQuery<MemberTeamDto> searchByWhereGroupQuery(List<SearchCond> group){
+        SearchCond range = group.get(0);
+        BooleanExpression nameIn = null;
+        boolean everyName = group.stream()
+                .anyMatch(cond -> cond.getUsername() == null && cond.getTeamName() == null);
+        if (!everyName) {
+            Set<String> usernames = group.stream().map(SearchCond::getUsername)
+                    .filter(Objects::nonNull).collect(Collectors.toSet());
+            Set<String> teamNames = group.stream().map(SearchCond::getTeamName)
+                    .filter(Objects::nonNull).collect(Collectors.toSet());
+            BooleanExpression usernameIn = usernames.isEmpty() ? null : member.username.in(usernames);
+            BooleanExpression teamNameIn = teamNames.isEmpty() ? null : team.name.in(teamNames);
+            nameIn = usernameIn == null ? teamNameIn
+                    : teamNameIn == null ? usernameIn : usernameIn.or(teamNameIn);
+        }
+
+        return queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        nameIn,
+                        userAgeGoe(range.getAgeGoe()),
+                        userAgeLoe(range.getAgeLoe())
+                );
+    }
+
+    // userNameOrTeamNameEq와 같은 조건을 메모리에서 확인
+    private boolean matchesName(SearchCond cond, MemberTeamDto row) {
+        if (cond.getUsername() == null && cond.getTeamName() == null) {
+            return true;
+        }
+        return (cond.getUsername() != null && cond.getUsername().equals(row.getUsername()))
+                || (cond.getTeamName() != null && cond.getTeamName().equals(row.getTeamName()));
+    }
+
+    // userNameEq(..).or(..)는 이름 조건이 null이면 NPE -> 둘 중 있는 조건만 사용
+    private BooleanExpression userNameOrTeamNameEq(String usernameCond, String teamNameCond) {
+        BooleanExpression userNameEq = userNameEq(usernameCond);
+        BooleanExpression teamNameEq = teamNameEq(teamNameCond);
+        if (userNameEq == null) {
+            return teamNameEq;
+        }
+        return teamNameEq == null ? userNameEq : userNameEq.or(teamNameEq);
     }
 
     private BooleanExpression userNameEq(String usernameCond) {
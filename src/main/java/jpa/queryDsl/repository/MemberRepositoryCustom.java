@@ -1,15 +1,27 @@
 package jpa.queryDsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import jpa.queryDsl.dto.MemberTeamDto;
 import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface MemberRepositoryCustom {
 
     List<MemberTeamDto> search(SearchCond searchCond);
     Page<MemberTeamDto> searchPageComplex(SearchCond searchCond, Pageable pageable);
+    // memberSearchExecutor에서 실행, 풀이 가득 차면 TaskRejectedException
+    CompletableFuture<List<MemberTeamDto>> searchAsync(SearchCond searchCond);
+    CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(SearchCond searchCond, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(SearchCond searchCond, String cursor, int size);
+
+    List<Member> findAllWithPlan(Predicate predicate, MemberFetchPlan fetchPlan);
+    List<Member> findByUsernameWithPlan(String username, MemberFetchPlan fetchPlan);
 
 }
@@ -1,48 +1,128 @@
 package jpa.queryDsl.repository;
 
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jpa.queryDsl.dto.MemberTeamDto;
 import jpa.queryDsl.dto.QMemberTeamDto;
+import jpa.queryDsl.config.MemberSearchExecutor;
+import jpa.queryDsl.config.SecondLevelCacheProperties;
 import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.metrics.RepositoryMetrics;
+import jpa.queryDsl.repository.support.CountQuery;
+import jpa.queryDsl.repository.support.CountStrategy;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.graph.GraphSemantic;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static jpa.queryDsl.entity.QMember.*;
 import static jpa.queryDsl.entity.QTeam.*;
 
+// 모두 조회 메서드 -> replica 사용 (member.replica.enabled=true)
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryTemplates searchQueryTemplates;
+    private final MemberCountCache memberCountCache;
+    private final MemberCountProperties countProperties;
+    private final SecondLevelCacheProperties cacheProperties;
+    private final RepositoryMetrics repositoryMetrics;
+    private final MemberSearchExecutor searchExecutor;
+    private final ObjectProvider<MemberSearchIndex> searchIndex;
 
+    /**
+     * 조건 조합(16가지)별로 미리 직렬화해 둔 JPQL에 파라미터만 바인딩해서 실행한다. -> 표현식 생성, JPQL 직렬화 생략
+     * member.cache.query-cache=true 이면 같은 조건의 결과를 쿼리 캐시(member-search 리전)에서 가져온다.
+     * member.search.index.enabled=true 이면 DB 대신 MemberSearchIndex에서 찾는다.
+     * -> 인덱스만 읽을 때 트랜잭션(커넥션, set read only / autocommit 왕복)을 시작하지 않도록 SUPPORTS
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<MemberTeamDto> search(SearchCond searchCond) {
-        return queryFactory
-                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
-                .from(member )
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(searchCond.getUsername()),
-                        teamNameEq(searchCond.getTeamName()),
-                        ageGoe(searchCond.getAgeGoe()),
-                        ageLoe(searchCond.getAgeLoe())
-                )
-                .fetch();
+        MemberSearchIndex index = searchIndex.getIfAvailable();
+        if (index != null && index.isLoaded()) {
+            return index.search(searchCond);
+        }
+        List<Object[]> rows = searchQueryTemplates.createQuery(searchCond)
+                .setHint(QueryHints.CACHEABLE, cacheProperties.isQueryCache())
+                .setHint(QueryHints.CACHE_REGION, SecondLevelCacheProperties.MEMBER_SEARCH)
+                .getResultList();
+        return MemberSearchQueryTemplates.toDtos(rows);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(SearchCond searchCond, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+        List<MemberTeamDto> content = searchContent(searchCond, pageable);
+
+        // 페이지 보다 검색 결과가 적을 때, 페이지 마지막일 땐 카운트 쿼리를 날릴 필요가 없기 때문에 그런 경우
+        // countQuery::fetchOne은 알아서 실행되지 않는다. -> 필요할 때만 사용한다. 알아서.
+        // 실행해야 할 때도 같은 조건의 결과가 캐시에 있으면 재사용한다.
+        return repositoryMetrics.page("MemberRepositoryImpl", RepositoryMetrics.shapeOf(searchCond), content, pageable,
+                () -> CountStrategy.atLeastPage(total(searchCond), pageable, content.size()));
+
+    }
+
+    // 실행 시간, row 수는 풀 스레드에서 작업 안에서 기록한다. (RepositoryMetricsAspect는 제출 시간만 보게 되므로 건너뜀)
+    @Override
+    public CompletableFuture<List<MemberTeamDto>> searchAsync(SearchCond searchCond) {
+        return searchExecutor.supply(recorded("searchAsync", searchCond, () -> search(searchCond)));
+    }
+
+    /**
+     * 컨텐츠 쿼리와 카운트 쿼리를 풀에서 동시에 실행한다.
+     * 트랜잭션 밖이라 쿼리마다 커넥션을 따로 받아서 서로 기다리지 않는다. -> 응답 시간 = 둘 중 느린 쿼리
+     * 동시에 시작하기 때문에 카운트 생략(마지막 페이지)은 못하지만 카운트 캐시는 그대로 사용한다.
+     * 카운트 작업이 거절되거나 결과가 타임아웃/취소되면 남은 작업도 취소한다. (대기열에 있으면 실행하지 않음)
+     */
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(SearchCond searchCond, Pageable pageable) {
+        CompletableFuture<List<MemberTeamDto>> content = searchExecutor.supply(
+                recorded("searchPageComplexAsync.content", searchCond, () -> searchContent(searchCond, pageable)));
+        CompletableFuture<Long> total;
+        try {
+            total = searchExecutor.supply(recorded("searchPageComplexAsync.count", searchCond, () -> total(searchCond)));
+        } catch (RuntimeException e) {
+            content.cancel(false);
+            throw e;
+        }
+        CompletableFuture<Page<MemberTeamDto>> page = content.thenCombine(total, (list, count) -> new PageImpl<>(list, pageable, CountStrategy.atLeastPage(count, pageable, list.size())));
+        page.whenComplete((value, e) -> {
+            if (e != null) {
+                content.cancel(false);
+                total.cancel(false);
+            }
+        });
+        return page;
+    }
+
+    private <T> Supplier<T> recorded(String method, SearchCond searchCond, Supplier<T> task) {
+        return repositoryMetrics.recorded("MemberRepositoryImpl", method, RepositoryMetrics.shapeOf(searchCond), task);
+    }
+
+    private List<MemberTeamDto> searchContent(SearchCond searchCond, Pageable pageable) {
+        return joinTeam(queryFactory
                 .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member), searchCond.getTeamName())
                 .where(
                         usernameEq(searchCond.getUsername()),
                         teamNameEq(searchCond.getTeamName()),
@@ -52,21 +132,96 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
+    }
+
+    private long total(SearchCond searchCond) {
+        return memberCountCache.get(searchCond, () -> count(countQuery(searchCond)));
+    }
 
+    /**
+     * 카운트 쿼리는 where 조건에 실제로 필요한 조인만 한다.
+     * member 컬럼만 조건으로 걸리면 team 조인 없이 member 테이블 하나로 count(member_id)만 센다.
+     * 팀 이름 조건이 있을 때만 team을 조인하는데, team.name = ? 조건이 팀 없는 회원을 걸러내므로 inner join과 결과가 같다.
+     */
+    private JPAQuery<Long> countQuery(SearchCond searchCond) {
         JPAQuery<Long> countQuery = queryFactory
                 .select(member.count())
-                .from(member)
+                .from(member);
+
+        if (StringUtils.hasText(searchCond.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+
+        return countQuery
                 .where(
                         usernameEq(searchCond.getUsername()),
                         teamNameEq(searchCond.getTeamName()),
                         ageGoe(searchCond.getAgeGoe()),
                         ageLoe(searchCond.getAgeLoe())
                 );
+    }
 
-        // 페이지 보다 검색 결과가 적을 때, 페이지 마지막일 땐 카운트 쿼리를 날릴 필요가 없기 때문에 그런 경우
-        // countQuery::fetchOne은 알아서 실행되지 않는다. -> 필요할 때만 사용한다. 알아서.
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    // 추정 모드 : threshold 다음 row가 있는지만 확인하고, 있으면 전체를 세지 않고 threshold + 1을 돌려준다.
+    private long count(JPAQuery<Long> countQuery) {
+        return CountStrategy.estimated(countProperties.getEstimateThreshold())
+                .count(CountQuery.of(em, queryFactory, countQuery));
+    }
+
+    /**
+     * keyset(seek) 페이징
+     * offset은 앞의 row를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+     * 마지막으로 읽은 member.id 이후부터 pk 인덱스로 바로 찾아가기 때문에 몇 번째 페이지든 비용이 같다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(SearchCond searchCond, String cursor, int size) {
+        List<MemberTeamDto> content = joinTeam(queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member), searchCond.getTeamName())
+                .where(
+                        idGt(MemberCursor.decode(cursor)),
+                        usernameEq(searchCond.getUsername()),
+                        teamNameEq(searchCond.getTeamName()),
+                        ageGoe(searchCond.getAgeGoe()),
+                        ageLoe(searchCond.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .limit(size + 1) // 한 개 더 가져와서 다음 페이지가 있는지 판단 -> 카운트 쿼리 X
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content.remove(size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public List<Member> findAllWithPlan(Predicate predicate, MemberFetchPlan fetchPlan) {
+        return withPlan(queryFactory.selectFrom(member).where(predicate), fetchPlan).fetch();
+    }
+
+    @Override
+    public List<Member> findByUsernameWithPlan(String username, MemberFetchPlan fetchPlan) {
+        return withPlan(queryFactory.selectFrom(member).where(member.username.eq(username)), fetchPlan).fetch();
+    }
+
+    // 엔티티 그래프를 fetchgraph 힌트로 : 그래프에 있는 연관관계만 조인해서 가져온다.
+    private JPAQuery<Member> withPlan(JPAQuery<Member> query, MemberFetchPlan fetchPlan) {
+        if (fetchPlan.getGraphName() == null) {
+            return query;
+        }
+        return query
+                .distinct() // 컬렉션까지 조인하면 회원 row가 중복된다.
+                .setHint(GraphSemantic.FETCH.getJpaHintName(), em.getEntityGraph(fetchPlan.getGraphName()));
+    }
+
+    // 팀 이름 조건이 있으면 inner join (결과는 같고 team(name) 인덱스에서 시작할 수 있다. -> MemberSearchQueryTemplates)
+    private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamNameCond) {
+        return StringUtils.hasText(teamNameCond) ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
 
+    private BooleanExpression idGt(Long lastMemberId) {
+        return lastMemberId == null ? null : member.id.gt(lastMemberId);
     }
 
     private BooleanExpression usernameEq(String usernameCond) {
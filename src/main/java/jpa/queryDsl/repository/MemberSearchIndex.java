@@ -0,0 +1,396 @@
+package jpa.queryDsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static jpa.queryDsl.entity.QTeam.*;
+
+/**
+ * search(SearchCond)를 DB 없이 메모리에서 처리하는 인덱스 (member.search.index.enabled=true)
+ * - 회원 엔티티 대신 컬럼별 기본형 배열 : age int[] (정렬), id long[], username/팀은 사전(dictionary) 코드 int[]
+ *   -> 나이 범위는 이진 탐색, 이름/팀 이름은 int 비교. 회원 한 명에 약 20바이트 + 중복 없는 이름 문자열
+ * - 읽기는 불변 스냅샷(volatile)이라 락이 없고, 변경은 커밋 후에 트랜잭션 단위로 새 스냅샷을 만들어 교체한다. (O(회원 수))
+ *   -> 읽기가 대부분이고 쓰기가 드문 데이터용. 대량 등록 중에는 커밋마다 배열 복사가 생긴다.
+ * - 엔티티 변경은 MemberSearchIndexListener가 넘겨준다. 벌크 연산은 refresh(ids)나 reload()로 맞춘다.
+ * 시작이 끝나기 전(로드 전)에는 DB로 조회한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.search.index", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MemberSearchIndex {
+
+    private static final int NO_TEAM = -1;
+
+    private final JPAQueryFactory queryFactory;
+    private final Dictionary usernames = new Dictionary();
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.size;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            Changes changes = new Changes();
+            queryFactory.select(team.id, team.name).from(team).fetch()
+                    .forEach(tuple -> changes.teams.put(tuple.get(team.id), tuple.get(team.name)));
+            fetchRows(null).forEach(row -> changes.members.put(row.id, row));
+            snapshot = build(Snapshot.EMPTY, changes);
+            log.info("member search index loaded members={} elapsed={}ms", snapshot.size, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // DB에서 다시 읽어서 반영 (벌크 연산처럼 리스너를 거치지 않은 변경), 없어진 회원은 뺀다.
+    public void refresh(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            Changes changes = new Changes();
+            memberIds.forEach(id -> changes.members.put(id, null));
+            for (Row row : fetchRows(memberIds)) {
+                changes.members.put(row.id, row);
+                if (row.teamId != null) {
+                    changes.teams.put(row.teamId, row.teamName);
+                }
+            }
+            apply(changes);
+        }
+    }
+
+    public List<MemberTeamDto> search(SearchCond searchCond) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("member search index is not loaded");
+        }
+
+        int usernameCode = -1;
+        if (StringUtils.hasText(searchCond.getUsername())) {
+            usernameCode = usernames.code(searchCond.getUsername());
+            if (usernameCode < 0) {
+                return new ArrayList<>();
+            }
+        }
+        boolean[] teamMatches = null;
+        if (StringUtils.hasText(searchCond.getTeamName())) {
+            teamMatches = current.teamsNamed(searchCond.getTeamName());
+            if (teamMatches == null) {
+                return new ArrayList<>();
+            }
+        }
+
+        int from = searchCond.getAgeGoe() == null ? 0 : lowerBound(current.ages, current.size, searchCond.getAgeGoe());
+        int to = searchCond.getAgeLoe() == null ? current.size : lowerBound(current.ages, current.size, (long) searchCond.getAgeLoe() + 1);
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (usernameCode >= 0 && current.usernameCodes[i] != usernameCode) {
+                continue;
+            }
+            int teamCode = current.teamCodes[i];
+            if (teamMatches != null && (teamCode == NO_TEAM || !teamMatches[teamCode])) {
+                continue;
+            }
+            result.add(new MemberTeamDto(current.ids[i], usernames.name(current.usernameCodes[i]), current.ages[i],
+                    teamCode == NO_TEAM ? null : current.teamIds[teamCode],
+                    teamCode == NO_TEAM ? null : current.teamNames[teamCode]));
+        }
+        result.sort(Comparator.comparing(MemberTeamDto::getMemberId)); // SQL 경로(MemberSearchQueryTemplates의 order by member.id)와 같은 순서
+        return result;
+    }
+
+    /**
+     * 엔티티 변경을 현재 트랜잭션에 모아뒀다가 커밋되면 한 번에 반영한다. (롤백되면 버림)
+     * 트랜잭션 동기화가 없으면 바로 반영한다.
+     */
+    void stage(Object entity, boolean removed) {
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        Changes changes = transactional ? pendingChanges() : new Changes();
+
+        if (entity instanceof Member) {
+            Member m = (Member) entity;
+            changes.members.put(m.getId(), removed ? null : toRow(m));
+            if (!removed && m.getTeam() != null && Hibernate.isInitialized(m.getTeam())) {
+                changes.knownTeams.put(m.getTeam().getId(), m.getTeam().getName());
+            }
+        } else if (entity instanceof Team) {
+            Team t = (Team) entity;
+            changes.teams.put(t.getId(), removed ? null : t.getName());
+        }
+
+        if (!transactional) {
+            apply(changes);
+        }
+    }
+
+    private Changes pendingChanges() {
+        Changes pending = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Changes();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new IndexSynchronization(pending));
+        }
+        return pending;
+    }
+
+    private void apply(Changes changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (snapshot != null) {
+                snapshot = build(snapshot, changes);
+            }
+        }
+    }
+
+    // 바뀐 회원을 뺀 기존 배열과 새 row(나이 순 정렬)를 병합해서 새 스냅샷을 만든다.
+    private Snapshot build(Snapshot base, Changes changes) {
+        // 팀 사전 : 팀 수만큼이라 매번 새로 만든다.
+        Map<Long, String> teams = new LinkedHashMap<>();
+        for (int i = 0; i < base.teamIds.length; i++) {
+            teams.put(base.teamIds[i], base.teamNames[i]);
+        }
+        changes.knownTeams.forEach(teams::putIfAbsent);
+        changes.teams.forEach((teamId, name) -> {
+            if (name == null) {
+                teams.remove(teamId);
+            } else {
+                teams.put(teamId, name);
+            }
+        });
+        long[] teamIds = new long[teams.size()];
+        String[] teamNames = new String[teams.size()];
+        Map<Long, Integer> teamCodes = new HashMap<>();
+        int code = 0;
+        for (Map.Entry<Long, String> entry : teams.entrySet()) {
+            teamIds[code] = entry.getKey();
+            teamNames[code] = entry.getValue();
+            teamCodes.put(entry.getKey(), code++);
+        }
+
+        long[] changedIds = changes.members.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        List<Row> added = new ArrayList<>();
+        changes.members.values().stream().filter(Objects::nonNull).forEach(added::add);
+        added.sort(Comparator.comparingInt(row -> row.age));
+
+        int capacity = base.size + added.size();
+        int[] ages = new int[capacity];
+        long[] ids = new long[capacity];
+        int[] usernameCodes = new int[capacity];
+        int[] newTeamCodes = new int[capacity];
+
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i <= base.size; i++) {
+            // 기존 row보다 나이가 작거나 같은 새 row를 먼저 넣는다.
+            while (next < added.size() && (i == base.size || added.get(next).age <= base.ages[i])) {
+                Row row = added.get(next++);
+                ages[size] = row.age;
+                ids[size] = row.id;
+                usernameCodes[size] = usernames.codeOrAdd(row.username);
+                newTeamCodes[size] = row.teamId == null ? NO_TEAM : teamCodes.getOrDefault(row.teamId, NO_TEAM);
+                size++;
+            }
+            if (i == base.size || Arrays.binarySearch(changedIds, base.ids[i]) >= 0) {
+                continue;
+            }
+            int teamCode = base.teamCodes[i];
+            ages[size] = base.ages[i];
+            ids[size] = base.ids[i];
+            usernameCodes[size] = base.usernameCodes[i];
+            newTeamCodes[size] = teamCode == NO_TEAM ? NO_TEAM : teamCodes.getOrDefault(base.teamIds[teamCode], NO_TEAM);
+            size++;
+        }
+        return new Snapshot(size, ages, ids, usernameCodes, newTeamCodes, teamIds, teamNames);
+    }
+
+    private List<Row> fetchRows(Collection<Long> memberIds) {
+        List<Tuple> tuples = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(memberIds == null ? null : member.id.in(memberIds))
+                .fetch();
+        List<Row> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(new Row(tuple.get(member.id), tuple.get(member.username), tuple.get(member.age),
+                    tuple.get(team.id), tuple.get(team.name)));
+        }
+        return rows;
+    }
+
+    private static Row toRow(Member m) {
+        Team t = m.getTeam();
+        Long teamId = null;
+        if (t instanceof HibernateProxy) {
+            teamId = (Long) ((HibernateProxy) t).getHibernateLazyInitializer().getIdentifier();
+        } else if (t != null) {
+            teamId = t.getId();
+        }
+        return new Row(m.getId(), m.getUsername(), m.getAge(), teamId, null);
+    }
+
+    // age 배열에서 value 이상인 첫 위치
+    private static int lowerBound(int[] ages, int size, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ages[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(0, new int[0], new long[0], new int[0], new int[0], new long[0], new String[0]);
+
+        private final int size;
+        private final int[] ages;
+        private final long[] ids;
+        private final int[] usernameCodes;
+        private final int[] teamCodes;
+        private final long[] teamIds;
+        private final String[] teamNames;
+
+        private Snapshot(int size, int[] ages, long[] ids, int[] usernameCodes, int[] teamCodes, long[] teamIds, String[] teamNames) {
+            this.size = size;
+            this.ages = ages;
+            this.ids = ids;
+            this.usernameCodes = usernameCodes;
+            this.teamCodes = teamCodes;
+            this.teamIds = teamIds;
+            this.teamNames = teamNames;
+        }
+
+        // 이름이 같은 팀이 여러 개일 수 있다. 없으면 null
+        private boolean[] teamsNamed(String name) {
+            boolean[] matches = null;
+            for (int i = 0; i < teamNames.length; i++) {
+                if (name.equals(teamNames[i])) {
+                    if (matches == null) {
+                        matches = new boolean[teamNames.length];
+                    }
+                    matches[i] = true;
+                }
+            }
+            return matches;
+        }
+    }
+
+    // 문자열 <-> int 코드, 추가만 한다. (같은 이름은 하나만 저장)
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] names = new String[16];
+
+        private int code(String name) {
+            return codes.getOrDefault(name, -1);
+        }
+
+        private String name(int code) {
+            return names[code];
+        }
+
+        // writeLock 안에서만 호출
+        private int codeOrAdd(String name) {
+            Integer code = codes.get(name);
+            if (code != null) {
+                return code;
+            }
+            int newCode = codes.size();
+            String[] current = names;
+            if (newCode == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[newCode] = name;
+            names = current;
+            codes.put(name, newCode);
+            return newCode;
+        }
+    }
+
+    private static class Row {
+        private final Long id;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+        private final String teamName;
+
+        private Row(Long id, String username, int age, Long teamId, String teamName) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+            this.teamName = teamName;
+        }
+    }
+
+    // 한 트랜잭션의 변경 : id -> 새 값(삭제면 null)
+    private static class Changes {
+        private final Map<Long, Row> members = new LinkedHashMap<>();
+        private final Map<Long, String> teams = new LinkedHashMap<>();
+        private final Map<Long, String> knownTeams = new LinkedHashMap<>(); // 인덱스에 없을 수도 있는 팀 이름
+
+        private boolean isEmpty() {
+            return members.isEmpty() && teams.isEmpty();
+        }
+    }
+
+    private class IndexSynchronization implements TransactionSynchronization {
+        private final Changes changes;
+
+        private IndexSynchronization(Changes changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchIndex.this);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package jpa.queryDsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Member, Team 변경을 MemberSearchIndex에 넘긴다. 인덱스를 끈 상태(빈 없음)면 아무것도 안함
+@RequiredArgsConstructor
+public class MemberSearchIndexListener {
+
+    private final ObjectProvider<MemberSearchIndex> memberSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        memberSearchIndex.ifAvailable(index -> index.stage(entity, false));
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        memberSearchIndex.ifAvailable(index -> index.stage(entity, true));
+    }
+}
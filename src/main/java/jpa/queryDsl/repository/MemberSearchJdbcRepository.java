@@ -0,0 +1,63 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.dto.MemberTeamColumns;
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * search와 같은 SQL(MemberSearchQueryTemplates.sql)을 JDBC로 직접 실행해서 ResultSet을 바로 매핑한다.
+ * QMemberTeamDto, Projections.bean/fields/constructor는 row마다 Object[](Tuple) + 리플렉션 호출을 거치지만
+ * 여기서는 컬럼 번호로 읽어서 생성자를 바로 호출한다. searchColumns는 DTO도 만들지 않고 배열에 담는다.
+ * 영속성 컨텍스트를 flush하지 않으므로 같은 트랜잭션에서 저장한 회원은 flush 후에 보인다.
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberSearchJdbcRepository {
+
+    // select 순서 : member.id, member.username, member.age, team.id, team.name
+    // wasNull()은 마지막에 읽은 컬럼 기준이라 컬럼 순서대로 읽는다.
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> {
+        long memberId = rs.getLong(1);
+        String username = rs.getString(2);
+        int age = rs.getInt(3);
+        long teamId = rs.getLong(4);
+        Long nullableTeamId = rs.wasNull() ? null : teamId;
+        return new MemberTeamDto(memberId, username, age, nullableTeamId, rs.getString(5));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberSearchQueryTemplates searchQueryTemplates;
+
+    public List<MemberTeamDto> search(SearchCond searchCond) {
+        return jdbcTemplate.query(sql(searchCond), ROW_MAPPER, MemberSearchQueryTemplates.sqlParameters(searchCond));
+    }
+
+    public MemberTeamColumns searchColumns(SearchCond searchCond) {
+        return jdbcTemplate.query(sql(searchCond), rs -> {
+            MemberTeamColumns columns = new MemberTeamColumns(jdbcTemplate.getFetchSize());
+            while (rs.next()) {
+                long memberId = rs.getLong(1);
+                String username = rs.getString(2);
+                int age = rs.getInt(3);
+                long teamId = rs.getLong(4);
+                if (rs.wasNull()) {
+                    teamId = MemberTeamColumns.NO_TEAM;
+                }
+                columns.add(memberId, username, age, teamId, rs.getString(5));
+            }
+            return columns;
+        }, MemberSearchQueryTemplates.sqlParameters(searchCond));
+    }
+
+    private String sql(SearchCond searchCond) {
+        return searchQueryTemplates.sql(MemberSearchQueryTemplates.shapeOf(searchCond));
+    }
+}
@@ -0,0 +1,96 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.dto.SearchCond;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * search 쿼리 모양 16가지의 실행 계획 확인 (H2 EXPLAIN)
+ * 조건이 하나라도 있는데 member/team 테이블 전체 스캔(tableScan)이면 인덱스가 빠진 것 -> member.search.plan-check
+ * - warn : 로그만, fail : 애플리케이션 시작 실패, none : 확인 안함
+ * EXPLAIN 결과 형식이 DB마다 달라서 H2일 때만 확인한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberSearchPlanCheck {
+
+    public enum Mode { NONE, WARN, FAIL }
+
+    private static final String TABLE_SCAN = ".tableScan";
+
+    private final MemberSearchQueryTemplates searchQueryTemplates;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${member.search.plan-check:warn}")
+    private Mode mode;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        if (mode == Mode.NONE || !isH2()) {
+            return;
+        }
+        List<Integer> scans = tableScans();
+        if (scans.isEmpty()) {
+            log.debug("member search plans use indexes for every shape");
+            return;
+        }
+        String message = "member search shapes fall back to a table scan: " + scans;
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    // 조건이 있는데 전체 스캔하는 모양 (0 = 조건 없음은 당연히 전체 스캔이라 제외)
+    public List<Integer> tableScans() {
+        List<Integer> scans = new ArrayList<>();
+        plans().forEach((shape, plan) -> {
+            if (shape != 0 && plan.contains(TABLE_SCAN)) {
+                log.warn("member search shape {} plan: {}", shape, plan);
+                scans.add(shape);
+            }
+        });
+        return scans;
+    }
+
+    // 모양 -> EXPLAIN 결과
+    public Map<Integer, String> plans() {
+        Map<Integer, String> plans = new LinkedHashMap<>();
+        for (int shape = 0; shape < MemberSearchQueryTemplates.SHAPES; shape++) {
+            plans.put(shape, explain(shape));
+        }
+        return plans;
+    }
+
+    private String explain(int shape) {
+        String sql = searchQueryTemplates.sql(shape);
+        Object[] params = MemberSearchQueryTemplates.sqlParameters(sample(shape));
+        return jdbcTemplate.query("explain " + sql, resultSet -> resultSet.next() ? resultSet.getString(1) : "", params);
+    }
+
+    // 모양의 조건만 채운 검색 조건 (값은 계획에 영향 없음)
+    private static SearchCond sample(int shape) {
+        return new SearchCond(
+                (shape & 1) != 0 ? "x" : null,
+                (shape & 1 << 1) != 0 ? "x" : null,
+                (shape & 1 << 2) != 0 ? 0 : null,
+                (shape & 1 << 3) != 0 ? 0 : null);
+    }
+
+    private boolean isH2() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "H2".equals(product);
+    }
+}
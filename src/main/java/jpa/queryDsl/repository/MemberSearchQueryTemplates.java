@@ -0,0 +1,159 @@
+package jpa.queryDsl.repository;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.QMemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static jpa.queryDsl.entity.QTeam.*;
+
+/**
+ * search 쿼리 템플릿 캐시
+ * SearchCond의 조건 4개가 있냐 없냐로 쿼리 모양은 16가지 뿐이다.
+ * 모양별로 한 번만 QueryDsl 표현식을 만들고 JPQL로 직렬화해 두고, 호출할 때는 파라미터만 바인딩한다.
+ * JPQL 문자열이 항상 같아서 하이버네이트 쿼리 플랜 캐시도 매번 hit 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchQueryTemplates {
+
+    public static final int SHAPES = 16;
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final Param<String> usernameParam = new Param<>(String.class, "username");
+    private static final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+    private static final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
+    private final EntityManager em;
+    private final AtomicReferenceArray<Template> templates = new AtomicReferenceArray<>(SHAPES);
+
+    // 조건이 있는 필드를 비트로 : username(1), teamName(2), ageGoe(4), ageLoe(8)
+    public static int shapeOf(SearchCond searchCond) {
+        int shape = 0;
+        if (StringUtils.hasText(searchCond.getUsername())) shape |= USERNAME;
+        if (StringUtils.hasText(searchCond.getTeamName())) shape |= TEAM_NAME;
+        if (searchCond.getAgeGoe() != null) shape |= AGE_GOE;
+        if (searchCond.getAgeLoe() != null) shape |= AGE_LOE;
+        return shape;
+    }
+
+    public String jpql(int shape) {
+        return template(shape).jpql;
+    }
+
+    // 하이버네이트가 jpql(shape)를 번역한 SQL, 컬럼 순서는 select 순서와 같다. (JDBC로 직접 실행할 때)
+    public String sql(int shape) {
+        return template(shape).sql;
+    }
+
+    // sql(shape)의 ? 순서대로 바인딩할 값 : username, teamName, ageGoe, ageLoe 중 조건이 있는 것만
+    public static Object[] sqlParameters(SearchCond searchCond) {
+        int shape = shapeOf(searchCond);
+        List<Object> params = new ArrayList<>(4);
+        if ((shape & USERNAME) != 0) params.add(searchCond.getUsername());
+        if ((shape & TEAM_NAME) != 0) params.add(searchCond.getTeamName());
+        if ((shape & AGE_GOE) != 0) params.add(searchCond.getAgeGoe());
+        if ((shape & AGE_LOE) != 0) params.add(searchCond.getAgeLoe());
+        return params.toArray();
+    }
+
+    // 파라미터까지 바인딩된 쿼리, 힌트는 호출하는 쪽에서 추가
+    public TypedQuery<Object[]> createQuery(SearchCond searchCond) {
+        Template template = template(shapeOf(searchCond));
+
+        Map<ParamExpression<?>, Object> params = new HashMap<>(4);
+        params.put(usernameParam, searchCond.getUsername());
+        params.put(teamNameParam, searchCond.getTeamName());
+        params.put(ageGoeParam, searchCond.getAgeGoe());
+        params.put(ageLoeParam, searchCond.getAgeLoe());
+
+        TypedQuery<Object[]> query = em.createQuery(template.jpql, Object[].class);
+        JPAUtil.setConstants(query, template.constants, params);
+        return query;
+    }
+
+    // select 순서 : member.id, member.username, member.age, team.id, team.name
+    public static List<MemberTeamDto> toDtos(List<Object[]> rows) {
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]));
+        }
+        return result;
+    }
+
+    private Template template(int shape) {
+        Template template = templates.get(shape);
+        if (template == null) {
+            // 동시에 만들어도 결과가 같으니 먼저 들어간 것을 쓴다.
+            templates.compareAndSet(shape, null, build(shape));
+            template = templates.get(shape);
+        }
+        return template;
+    }
+
+    private Template build(int shape) {
+        JPAQuery<MemberTeamDto> query = new JPAQuery<Void>()
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member);
+        // team.name = ? 이면 팀 없는 회원은 어차피 빠지므로 inner join과 결과가 같다.
+        // inner join이어야 DB가 조인 순서를 바꿔서 team(name) 인덱스로 팀부터 찾을 수 있다. (left join은 member 전체 스캔)
+        if ((shape & TEAM_NAME) != 0) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        query.where(
+                        (shape & USERNAME) != 0 ? member.username.eq(usernameParam) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(teamNameParam) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(ageGoeParam) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(ageLoeParam) : null
+                );
+        // 결과 순서를 정해둔다. (조인 순서나 인덱스에 따라 바뀌지 않게, MemberSearchIndex도 같은 순서)
+        query.orderBy(member.id.asc());
+
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        String jpql = serializer.toString();
+        String sql = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings()[0];
+        return new Template(jpql, sql, new ArrayList<>(serializer.getConstants()));
+    }
+
+    private static class Template {
+        private final String jpql;
+        private final String sql;
+        private final List<Object> constants; // 위치 파라미터(?1, ?2 ..) 순서의 Param
+
+        private Template(String jpql, String sql, List<Object> constants) {
+            this.jpql = jpql;
+            this.sql = sql;
+            this.constants = constants;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.service.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * team_stats 증분 유지
+ * 회원 insert/update/delete(changTeam 포함)마다 팀별 증감분을 세션에 모아두고, 커밋 직전(마지막 flush 이후)에 팀당 update 한 번으로 반영한다.
+ * 같은 트랜잭션이라 롤백되면 통계도 같이 롤백되고, 대량 저장도 팀 수만큼만 update가 나간다.
+ * 최소/최대 나이는 빠지는 값이 최소/최대였는지 알 수 없어서 회원이 빠진 팀만 member 테이블에서 다시 구한다.
+ * 팀 행은 팀을 저장할 때 만들고, 그 전에 만들어진 팀은 시작할 때(웹 서버가 요청을 받기 전) 채운다. -> 커밋 경로에서는 update만 해서 동시 insert 충돌이 없다.
+ * JPQL/QueryDSL 벌크 연산은 이벤트가 없어서 반영되지 않는다. -> TeamStatsService.rebuild
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        SmartInitializingSingleton {
+
+    private static final long serialVersionUID = 1L;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TeamStatsService teamStatsService;
+    private final Map<SessionImplementor, Map<Long, Delta>> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        teamStatsService.fillMissing();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()).created = true;
+        } else if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getState(), event.getPersister());
+            if (teamId != null) {
+                delta(event.getSession(), teamId).add(age(event.getState(), event.getPersister()));
+            }
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long newTeamId = teamId(event.getState(), persister);
+        if (event.getOldState() == null) {
+            // 이전 값을 모르면(분리된 엔티티 update) 새 팀만 다시 계산, 이전 팀은 정합성 검사에서 잡는다.
+            if (newTeamId != null) {
+                delta(event.getSession(), newTeamId).recompute = true;
+            }
+            return;
+        }
+
+        Long oldTeamId = teamId(event.getOldState(), persister);
+        int oldAge = age(event.getOldState(), persister);
+        int newAge = age(event.getState(), persister);
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+        if (oldTeamId != null) {
+            delta(event.getSession(), oldTeamId).remove(oldAge);
+        }
+        if (newTeamId != null) {
+            delta(event.getSession(), newTeamId).add(newAge);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team) {
+            delta(event.getSession(), (Long) event.getId()).deleted = true;
+        } else if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getDeletedState(), event.getPersister());
+            if (teamId != null) {
+                delta(event.getSession(), teamId).remove(age(event.getDeletedState(), event.getPersister()));
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation") // PostActionEventListener가 아직 abstract로 요구한다.
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // 트랜잭션마다 처음 변경이 생길 때 커밋 직전/완료 후 작업을 한 번만 등록한다.
+    private Delta delta(EventSource session, Long teamId) {
+        Map<Long, Delta> deltas = pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess(this::apply);
+            session.getActionQueue().registerProcess((success, completed) -> pending.remove(session));
+            return new LinkedHashMap<>();
+        });
+        return deltas.computeIfAbsent(teamId, id -> new Delta());
+    }
+
+    private void apply(SessionImplementor session) {
+        Map<Long, Delta> deltas = pending.remove(session);
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> {
+            for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+                apply(connection, entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private void apply(Connection connection, Long teamId, Delta delta) throws SQLException {
+        if (delta.deleted) {
+            execute(connection, "delete from team_stats where team_id = ?", teamId);
+            return;
+        }
+        if (delta.created) {
+            execute(connection, "insert into team_stats (team_id, member_count, age_sum) values (?, 0, 0)", teamId);
+        }
+
+        StringBuilder sql = new StringBuilder("update team_stats set member_count = member_count + ?, age_sum = age_sum + ?");
+        if (delta.addedMin != null) {
+            sql.append(", age_min = case when age_min is null or age_min > ? then ? else age_min end")
+                    .append(", age_max = case when age_max is null or age_max < ? then ? else age_max end");
+        }
+        sql.append(" where team_id = ?");
+        int updated;
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            statement.setLong(index++, delta.count);
+            statement.setLong(index++, delta.sum);
+            if (delta.addedMin != null) {
+                statement.setInt(index++, delta.addedMin);
+                statement.setInt(index++, delta.addedMin);
+                statement.setInt(index++, delta.addedMax);
+                statement.setInt(index++, delta.addedMax);
+            }
+            statement.setLong(index, teamId);
+            updated = statement.executeUpdate();
+        }
+
+        if (updated == 0) {
+            // 행이 없으면(직접 SQL로 지운 경우 등) 회원 저장은 그대로 두고 정합성 검사/rebuild로 맞춘다.
+            log.warn("team_stats row missing teamId={}, run rebuild", teamId);
+        } else if (delta.recompute) {
+            execute(connection, "update team_stats set age_min = (select min(age) from member where team = ?),"
+                    + " age_max = (select max(age) from member where team = ?) where team_id = ?", teamId, teamId, teamId);
+        }
+    }
+
+    private void execute(Connection connection, String sql, Long... params) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setLong(i + 1, params[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private Long teamId(Object[] state, EntityPersister persister) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    private int age(Object[] state, EntityPersister persister) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    // 한 트랜잭션 동안 한 팀에 생긴 변화
+    private static class Delta {
+        private long count;
+        private long sum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private boolean recompute;
+        private boolean created;
+        private boolean deleted;
+
+        private void add(int age) {
+            count++;
+            sum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        private void remove(int age) {
+            count--;
+            sum -= age;
+            recompute = true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package jpa.queryDsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.dto.QTeamStatsDto;
+import jpa.queryDsl.dto.TeamStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static jpa.queryDsl.entity.QTeam.*;
+import static jpa.queryDsl.entity.QTeamStats.*;
+
+/**
+ * 팀별 회원 통계 조회
+ * member를 group by 하지 않고 요약 테이블만 읽는다. -> 회원 수와 상관없이 팀 수만큼만 읽음
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class TeamStatsRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.ageMin,
+                        teamStats.ageMax))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(team.name.asc(), team.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,72 @@
+package jpa.queryDsl.repository.support;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 카운트 쿼리 결과 캐시
+ * ttl이 지나면 다시 조회하고, maxSize를 넘으면 가장 오래 사용하지 않은 키부터 버린다(LRU).
+ * 조회하는 동안 invalidateAll()이 불리면(세대가 바뀌면) 그 결과는 저장하지 않는다. -> 비우기 전 데이터로 센 값이 다시 들어가지 않는다.
+ */
+public class CountCache<K> {
+
+    private final long ttlNanos;
+    private final Map<K, Entry> entries;
+    private long generation; // entries 락으로 보호
+
+    public CountCache(Duration ttl, int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // 카운트 쿼리는 락 밖에서 실행한다. 같은 키가 동시에 들어오면 둘 다 조회할 수 있지만 결과는 같다.
+    public long get(K key, LongSupplier counter) {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                return entry.count;
+            }
+            loadGeneration = generation;
+        }
+
+        long count = counter.getAsLong();
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(count, now));
+            }
+        }
+        return count;
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long loadedAt;
+
+        private Entry(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package jpa.queryDsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 컨텐츠 쿼리에서 만든 카운트 쿼리 (fetchCount 대체)
+ * - order by, limit/offset, fetch join, select 절을 떼고 from/join/where/group by/having만 남긴다.
+ * - 컬렉션 조인, 세타 조인처럼 루트 row가 늘어날 수 있으면 count(distinct root)로 센다. -> count(distinct root.id)
+ * - select distinct면 select 절을 센다. 식이 하나면 count(distinct 식) (+ null), 여러 개(Tuple, DTO)면 group by 식들의 그룹 수.
+ * - group by가 있으면 그룹 수를 센다. 그룹 식이 하나면 count(distinct 그룹 식) + null 그룹(count(*) > count(그룹 식)이면 1).
+ * - 그룹 식이 여러 개거나 having이 있으면 JPQL에서 서브쿼리로 셀 수 없어서 그룹마다 1을 조회해서 센다.
+ *   그룹 수만큼 row를 메모리에 올리기 때문에 그룹이 많으면 estimated로 상한을 두거나 카운트 쿼리를 따로 준다.
+ * 카운트 쿼리도 주입받은 JPAQueryFactory로 만들어서 /actuator/querydiagnostics에 기록된다. (DiagnosticJPAQueryFactory)
+ */
+public class CountQuery {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final JPQLTemplates templates;
+    private final QueryMetadata metadata;
+    private final Expression<?> target;
+    private final boolean distinct;
+    private final boolean groupRows;
+    private final boolean grouped;
+
+    private CountQuery(EntityManager em, JPAQueryFactory queryFactory, QueryMetadata metadata, Expression<?> target,
+                       boolean distinct, boolean groupRows, boolean grouped) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.templates = JPAProvider.getTemplates(em);
+        this.metadata = metadata;
+        this.target = target;
+        this.distinct = distinct;
+        this.groupRows = groupRows;
+        this.grouped = grouped;
+    }
+
+    public static CountQuery of(EntityManager em, JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        List<JoinExpression> joins = source.getJoins();
+        if (joins.isEmpty()) {
+            throw new IllegalArgumentException("count query needs a from clause");
+        }
+
+        DefaultQueryMetadata metadata = new DefaultQueryMetadata();
+        boolean multiplied = false;
+        for (int i = 0; i < joins.size(); i++) {
+            JoinExpression join = joins.get(i);
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    metadata.addJoinFlag(flag);
+                }
+            }
+            if (i > 0 && multipliesRows(join)) {
+                multiplied = true;
+            }
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        // 그룹 식이 하나고 having이 없으면 group by 없이 count(distinct 그룹 식)으로 센다.
+        List<Expression<?>> groupBy = source.getGroupBy();
+        boolean groupRows = groupBy.size() > 1 || (!groupBy.isEmpty() && source.getHaving() != null);
+        if (groupRows) {
+            groupBy.forEach(metadata::addGroupBy);
+            if (source.getHaving() != null) {
+                metadata.addHaving(source.getHaving());
+            }
+        }
+        for (QueryFlag flag : source.getFlags()) {
+            metadata.addFlag(flag);
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            setParam(metadata, param.getKey(), param.getValue());
+        }
+
+        if (!groupBy.isEmpty()) {
+            return new CountQuery(em, queryFactory, metadata, groupBy.get(0), !groupRows, groupRows, true);
+        }
+        Expression<?> root = root(joins.get(0));
+        if (source.isDistinct() && source.getProjection() != null) {
+            Expression<?> projection = source.getProjection();
+            if (projection instanceof FactoryExpression) {
+                List<Expression<?>> args = ((FactoryExpression<?>) projection).getArgs();
+                args.forEach(arg -> metadata.addGroupBy(unalias(arg)));
+                return new CountQuery(em, queryFactory, metadata, unalias(args.get(0)), false, true, true);
+            }
+            projection = unalias(projection);
+            return new CountQuery(em, queryFactory, metadata, projection, true, false, !projection.equals(root));
+        }
+        return new CountQuery(em, queryFactory, metadata, root, multiplied, false, false);
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public long fetchCount() {
+        if (groupRows) {
+            return query().select(Expressions.ONE).fetch().size();
+        }
+        if (grouped) {
+            // count(distinct)는 null을 세지 않는다. (left join 대상으로 group by 하면 null 그룹이 생긴다.)
+            Tuple counts = query().select(countExpression(), Expressions.ONE.count(),
+                    Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_AGG, target)).fetchOne();
+            if (counts == null) {
+                return 0;
+            }
+            long rows = valueOf(counts.get(1, Long.class));
+            return valueOf(counts.get(0, Long.class)) + (rows > valueOf(counts.get(2, Long.class)) ? 1 : 0);
+        }
+        Long count = query().select(countExpression()).fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    // offset 위치에 row가 하나라도 있으면 결과가 offset보다 많다. (전체를 세지 않고 확인)
+    // 그룹은 그룹 식 대신 1을 조회한다. (null 그룹 row도 null이 아닌 결과)
+    public boolean hasMoreThan(long offset) {
+        JPAQuery<?> probe = groupRows ? query().select(Expressions.ONE)
+                : grouped ? query().select(Expressions.ONE).groupBy(target)
+                : distinct ? query().select(target).distinct()
+                : query().select(Expressions.ONE);
+        return probe.offset(offset).fetchFirst() != null;
+    }
+
+    // 같은 JPQL + 같은 바인딩 값이면 같은 키
+    public String cacheKey() {
+        QueryMetadata keyMetadata = metadata.clone();
+        keyMetadata.setProjection(countExpression());
+        JPQLSerializer serializer = new JPQLSerializer(templates, em);
+        serializer.serialize(keyMetadata, false, null);
+        return serializer + " " + serializer.getConstants();
+    }
+
+    // 팩토리에서 만든 빈 쿼리에 from/join/where/group by/having과 파라미터를 옮긴다.
+    private JPAQuery<?> query() {
+        JPAQuery<?> query = queryFactory.query();
+        QueryMetadata copy = query.getMetadata();
+        for (JoinExpression join : metadata.getJoins()) {
+            copy.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                copy.addJoinCondition(join.getCondition());
+            }
+            join.getFlags().forEach(copy::addJoinFlag);
+        }
+        if (metadata.getWhere() != null) {
+            copy.addWhere(metadata.getWhere());
+        }
+        metadata.getGroupBy().forEach(copy::addGroupBy);
+        if (metadata.getHaving() != null) {
+            copy.addHaving(metadata.getHaving());
+        }
+        metadata.getFlags().forEach(copy::addFlag);
+        for (Map.Entry<ParamExpression<?>, Object> param : metadata.getParams().entrySet()) {
+            setParam(copy, param.getKey(), param.getValue());
+        }
+        return query;
+    }
+
+    private Expression<Long> countExpression() {
+        return distinct
+                ? Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, target)
+                : Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_AGG, target);
+    }
+
+    private static long valueOf(Long count) {
+        return count == null ? 0 : count;
+    }
+
+    private static Expression<?> root(JoinExpression from) {
+        Expression<?> target = from.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) target).getArg(1);
+        }
+        return target;
+    }
+
+    // select 절의 별칭(식.as("name"))은 떼고 식만
+    private static Expression<?> unalias(Expression<?> expression) {
+        if (expression instanceof Operation && ((Operation<?>) expression).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) expression).getArg(0);
+        }
+        return expression;
+    }
+
+    // 연관관계 to-one 조인만 루트 row 수를 늘리지 않는다. 컬렉션 조인, 세타 조인(from a, b), 연관관계 없는 엔티티 조인은 늘릴 수 있다.
+    private static boolean multipliesRows(JoinExpression join) {
+        if (join.getType() == JoinType.DEFAULT) {
+            return true;
+        }
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            target = ((Operation<?>) target).getArg(0);
+        }
+        if (target instanceof CollectionExpression || !(target instanceof Path)) {
+            return true;
+        }
+        return ((Path<?>) target).getMetadata().isRoot();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+}
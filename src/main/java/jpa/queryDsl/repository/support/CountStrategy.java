@@ -0,0 +1,73 @@
+package jpa.queryDsl.repository.support;
+
+import org.springframework.data.domain.Pageable;
+
+/**
+ * applyPagination 전체 개수를 구하는 방법
+ * - exact : 항상 카운트 쿼리 실행
+ * - estimated : threshold 개까지만 정확히 세고 넘으면 threshold + 1 반환 (큰 테이블에서 전체 count 방지)
+ *   threshold보다 뒤의 페이지는 atLeastPage로 다음 페이지가 있는 것으로 둔다.
+ * - cached : 같은 카운트 쿼리 결과를 CountCache에 재사용
+ * - none : 카운트 쿼리 없이 다음 페이지가 있는지만 확인 (pageSize + 1 조회, Page가 필요 없으면 applySlicing 사용)
+ *   isNone()으로 구분하고, 다른 전략으로 감싸도(cached) none 그대로 둔다.
+ */
+@FunctionalInterface
+public interface CountStrategy {
+
+    CountStrategy NONE = new CountStrategy() {
+        @Override
+        public long count(CountQuery countQuery) {
+            throw new UnsupportedOperationException("none strategy does not run count queries");
+        }
+
+        @Override
+        public boolean isNone() {
+            return true;
+        }
+    };
+
+    long count(CountQuery countQuery);
+
+    // true면 applyPagination이 카운트 쿼리 대신 pageSize + 1건으로 다음 페이지만 확인한다.
+    default boolean isNone() {
+        return false;
+    }
+
+    static CountStrategy exact() {
+        return CountQuery::fetchCount;
+    }
+
+    static CountStrategy estimated(long threshold) {
+        if (threshold <= 0) {
+            return exact();
+        }
+        return countQuery -> countQuery.hasMoreThan(threshold) ? threshold + 1 : countQuery.fetchCount();
+    }
+
+    static CountStrategy cached(CountCache<String> cache) {
+        return cached(cache, exact());
+    }
+
+    static CountStrategy cached(CountCache<String> cache, CountStrategy delegate) {
+        if (delegate.isNone()) {
+            return delegate;
+        }
+        return countQuery -> cache.get(countQuery.cacheKey(), () -> delegate.count(countQuery));
+    }
+
+    static CountStrategy none() {
+        return NONE;
+    }
+
+    /**
+     * 꽉 찬 페이지인데 전체 개수가 페이지 끝보다 작으면(추정값, 오래된 캐시) offset + pageSize + 1로 올린다.
+     * 그대로 두면 PageImpl이 전체 개수를 offset + size로 줄여서 마지막 페이지(hasNext=false)가 된다.
+     */
+    static long atLeastPage(long total, Pageable pageable, int contentSize) {
+        if (pageable.isUnpaged() || contentSize < pageable.getPageSize()) {
+            return total;
+        }
+        long pageEnd = pageable.getOffset() + contentSize;
+        return total < pageEnd ? pageEnd + 1 : total;
+    }
+}
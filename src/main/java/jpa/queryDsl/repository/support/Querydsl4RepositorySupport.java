@@ -7,9 +7,15 @@ import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.metrics.DiagnosticJPAQueryFactory;
+import jpa.queryDsl.metrics.QueryDiagnostics;
+import jpa.queryDsl.metrics.RepositoryMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -22,6 +28,7 @@ import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 @Repository
 public abstract class Querydsl4RepositorySupport {
@@ -30,6 +37,8 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private RepositoryMetrics repositoryMetrics;
+    private QueryDiagnostics queryDiagnostics;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -47,8 +56,20 @@ public abstract class Querydsl4RepositorySupport {
                 PathBuilder<>(path.getType(), path.getMetadata()));
         this.queryFactory = new JPAQueryFactory(entityManager);
     }
+
+    @Autowired(required = false)
+    public void setRepositoryMetrics(RepositoryMetrics repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+    @Autowired(required = false)
+    public void setQueryDiagnostics(QueryDiagnostics queryDiagnostics) {
+        this.queryDiagnostics = queryDiagnostics;
+    }
     @PostConstruct
     public void validate() {
+        if (queryDiagnostics != null && entityManager != null) { // setter 호출 순서와 상관없이 주입이 끝난 뒤에
+            this.queryFactory = new DiagnosticJPAQueryFactory(entityManager, queryDiagnostics);
+        }
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
@@ -68,22 +89,63 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
         return getQueryFactory().selectFrom(from);
     }
+    // 하위 레포지토리에서 오버라이드해서 기본 카운트 방법을 바꾼다.
+    protected CountStrategy getCountStrategy() {
+        return CountStrategy.exact();
+    }
+    // 카운트 쿼리는 컨텐츠 쿼리에서 만든다. (CountQuery)
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        return applyPagination(pageable, contentQuery, getCountStrategy());
+    }
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, CountStrategy countStrategy) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+        CountQuery countQuery = CountQuery.of(getEntityManager(), getQueryFactory(), jpaQuery);
+        return applyPagination(pageable, jpaQuery, countQuery, countStrategy);
     }
+    // 카운트 쿼리를 따로 줄 때도 select 절은 무시하고 from/join/where만 사용한다.
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+        CountQuery jpaCountQuery = CountQuery.of(getEntityManager(), getQueryFactory(), countQuery.apply(getQueryFactory()));
+        return applyPagination(pageable, jpaContentQuery, jpaCountQuery, getCountStrategy());
+    }
+    private <T> Page<T> applyPagination(Pageable pageable, JPAQuery<T> contentQuery,
+                                        CountQuery countQuery, CountStrategy countStrategy) {
+        if (countStrategy.isNone() && pageable.isPaged()) {
+            // 다음 페이지가 있으면 전체 개수를 현재 페이지 + 1건으로 둔다. -> hasNext만 정확
+            Slice<T> slice = fetchSlice(pageable, contentQuery);
+            return new PageImpl<>(slice.getContent(), pageable,
+                    pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0));
+        }
+        List<T> content = getQuerydsl().applyPagination(pageable, contentQuery).fetch();
+        return getPage(content, pageable, () -> CountStrategy.atLeastPage(countStrategy.count(countQuery), pageable, content.size()));
+    }
+    // 무한 스크롤용 : 카운트 쿼리 없이 pageSize + 1건을 조회해서 다음 페이지 여부만 확인
+    protected <T> Slice<T> applySlicing(Pageable pageable,
+                                        Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        return fetchSlice(pageable, jpaQuery);
+    }
+    private <T> Slice<T> fetchSlice(Pageable pageable, JPAQuery<T> contentQuery) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(getQuerydsl().applySorting(pageable.getSort(), contentQuery).fetch(), pageable, false);
+        }
+        List<T> rows = getQuerydsl().applySorting(pageable.getSort(), contentQuery)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1)
+                .fetch();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<T> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+    // 메트릭이 있으면 카운트 쿼리 생략 여부도 기록
+    private <T> Page<T> getPage(List<T> content, Pageable pageable, LongSupplier total) {
+        if (repositoryMetrics == null) {
+            return PageableExecutionUtils.getPage(content, pageable, total);
+        }
+        return repositoryMetrics.page(getClass().getSimpleName(), RepositoryMetrics.NO_SHAPE, content, pageable, total);
     }
 }
@@ -0,0 +1,26 @@
+package jpa.queryDsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+public class BulkResult {
+
+    private final long rows;
+    private final int chunks;
+    private final Duration elapsed;
+
+    public BulkResult(long rows, int chunks, Duration elapsed) {
+        this.rows = rows;
+        this.chunks = chunks;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rows * 1_000_000_000d / nanos;
+    }
+}
@@ -0,0 +1,223 @@
+package jpa.queryDsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.repository.MemberCountCache;
+import jpa.queryDsl.repository.MemberSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static jpa.queryDsl.entity.QTeam.*;
+
+/**
+ * 대량 회원 수정/삭제 (queryFactory.update(member)...execute() 한 번 대신)
+ * - 조건에 맞는 회원을 id 순서로 chunk-size 개씩 잘라서(keyset) chunk마다 짧은 트랜잭션(REQUIRES_NEW)으로 실행
+ *   -> 락을 오래 잡지 않고 undo 로그도 chunk 크기만큼만 쌓인다. chunk 사이에 pause 만큼 쉰다.
+ * - 수정/삭제는 chunk에서 고른 id에 대해서만 실행하므로 조건에 조인(member.team.name 등)이 있어도 된다.
+ *   id를 고를 때 select ... for update로 잠가서 수정/삭제 전에 다른 트랜잭션이 조건 컬럼을 바꾸지 못하게 한다.
+ * - 읽기/쓰기 트랜잭션 안에서 호출하면 IllegalStateException : chunk는 별도 트랜잭션이라 바깥 트랜잭션이 수정한 회원의 락을
+ *   바깥이 끝날 때까지(= 영원히) 기다리고, flush 하지 않은 변경은 detach로 버려진다. 읽기 전용 트랜잭션, OSIV 안에서는 된다.
+ * - chunk가 커밋되면 해당 회원/팀을 호출한 쪽 영속성 컨텍스트(OSIV, 바깥 트랜잭션)와 2차 캐시에서 빼고,
+ *   카운트 캐시를 비우고, 영향받은 팀의 team_stats와 검색 인덱스를 다시 맞춘다. (벌크 연산은 리스너를 거치지 않음)
+ * 이미 끝난 chunk는 롤백되지 않는다. 중간에 실패하면 그때까지의 결과만 반영된다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBulkService {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final MemberCountCache memberCountCache;
+    private final TeamStatsService teamStatsService;
+    private final ObjectProvider<MemberSearchIndex> memberSearchIndex;
+
+    @Value("${member.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${member.bulk.pause:0ms}")
+    private Duration pause;
+
+    // ex) update(member.age.lt(28), update -> update.set(member.username, "비회원"))
+    public BulkResult update(Predicate where, Consumer<JPAUpdateClause> set) {
+        return update(where, set, progress -> { });
+    }
+
+    public BulkResult update(Predicate where, Consumer<JPAUpdateClause> set, Consumer<BulkResult> progress) {
+        return execute("update", where, ids -> {
+            JPAUpdateClause update = queryFactory.update(member);
+            set.accept(update);
+            return update.where(member.id.in(ids)).execute();
+        }, progress);
+    }
+
+    public BulkResult delete(Predicate where) {
+        return delete(where, progress -> { });
+    }
+
+    public BulkResult delete(Predicate where, Consumer<BulkResult> progress) {
+        return execute("delete", where, ids -> queryFactory.delete(member).where(member.id.in(ids)).execute(), progress);
+    }
+
+    private BulkResult execute(String operation, Predicate where, ChunkAction action, Consumer<BulkResult> progress) {
+        // OSIV나 바깥 트랜잭션의 영속성 컨텍스트 (없으면 null)
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException("member bulk " + operation + " must not run inside a read-write transaction");
+        }
+        EntityManager callerEm = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        long start = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = transactionTemplate.execute(status -> executeChunk(where, after, action));
+            if (chunk.memberIds.isEmpty()) {
+                break;
+            }
+            evict(chunk, callerEm);
+            memberCountCache.invalidateAll();
+            memberSearchIndex.ifAvailable(index -> index.refresh(chunk.memberIds));
+
+            rows += chunk.rows;
+            chunks++;
+            lastId = chunk.lastId;
+            BulkResult current = new BulkResult(rows, chunks, Duration.ofNanos(System.nanoTime() - start));
+            log.debug("member bulk {} progress rows={} chunks={} elapsed={}", operation, rows, chunks, current.getElapsed());
+            progress.accept(current);
+
+            if (chunk.memberIds.size() < chunkSize || !pause()) {
+                break;
+            }
+        }
+
+        BulkResult result = new BulkResult(rows, chunks, Duration.ofNanos(System.nanoTime() - start));
+        log.info("member bulk {} done rows={} chunks={} elapsed={}", operation, result.getRows(), result.getChunks(), result.getElapsed());
+        return result;
+    }
+
+    private Chunk executeChunk(Predicate where, Long after, ChunkAction action) {
+        // member.team.id는 FK 컬럼이라 조인하지 않는다. (조건에 조인이 없으면 회원 row만 잠긴다.)
+        List<Tuple> targets = queryFactory
+                .select(member.id, member.team.id)
+                .from(member)
+                .where(where, after == null ? null : member.id.gt(after))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch();
+        if (targets.isEmpty()) {
+            return new Chunk(List.of(), Set.of(), 0);
+        }
+
+        List<Long> memberIds = targets.stream().map(tuple -> tuple.get(member.id)).collect(Collectors.toList());
+        Set<Long> teamIds = targets.stream()
+                .map(tuple -> tuple.get(member.team.id))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        long rows = action.execute(memberIds);
+
+        // 수정으로 팀이 바뀌었으면 새 팀도 다시 계산해야 한다.
+        teamIds.addAll(queryFactory
+                .select(team.id).distinct()
+                .from(member)
+                .join(member.team, team)
+                .where(member.id.in(memberIds))
+                .fetch());
+        teamStatsService.rebuild(teamIds);
+        return new Chunk(memberIds, teamIds, rows);
+    }
+
+    private void evict(Chunk chunk, EntityManager callerEm) {
+        // 벌크 JPQL이 Member 리전 전체를 무효화하지만 캐시 설정과 상관없이 chunk 대상은 확실히 뺀다.
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        chunk.memberIds.forEach(id -> sessionFactory.getCache().evictEntityData(Member.class, id));
+        chunk.teamIds.forEach(id -> sessionFactory.getCache().evictCollectionData(Team.class.getName() + ".members", id));
+
+        if (callerEm != null) {
+            detach(callerEm, Member.class, chunk.memberIds);
+            detach(callerEm, Team.class, chunk.teamIds);
+        }
+    }
+
+    // 영속성 컨텍스트에 있는 것만 detach (getReference처럼 새로 만들지 않는다)
+    private void detach(EntityManager em, Class<?> entityClass, Collection<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        for (Long id : ids) {
+            Object entity = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            if (entity != null) {
+                em.detach(entity);
+            }
+        }
+    }
+
+    private boolean pause() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("member bulk interrupted");
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        long execute(List<Long> memberIds);
+    }
+
+    private static class Chunk {
+        private final List<Long> memberIds;
+        private final Set<Long> teamIds;
+        private final long rows;
+        private final Long lastId;
+
+        private Chunk(List<Long> memberIds, Set<Long> teamIds, long rows) {
+            this.memberIds = memberIds;
+            this.teamIds = teamIds;
+            this.rows = rows;
+            this.lastId = memberIds.isEmpty() ? null : memberIds.get(memberIds.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package jpa.queryDsl.service;
+
+import jpa.queryDsl.entity.Member;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 대량 회원 등록
+ * - member id는 pooled 시퀀스(allocationSize 50)라 시퀀스 조회가 50건에 한 번
+ * - hibernate.jdbc.batch_size, order_inserts로 insert를 JDBC 배치로 묶어서 실행
+ * - flush-size 마다 flush + clear 해서 영속성 컨텍스트가 커지지 않게 한다 -> 천만 건도 메모리 일정
+ * - chunk-size 마다 트랜잭션을 나눠서 커밋한다.
+ * 이미 트랜잭션 안에서 호출하면 그 트랜잭션에 참여하고, 호출한 쪽 영속성 컨텍스트도 같이 비워진다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberImportService {
+
+    @PersistenceContext private EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${member.import.flush-size:100}")
+    private int flushSize;
+
+    @Value("${member.import.chunk-size:10000}")
+    private int chunkSize;
+
+    // Member가 참조하는 Team은 미리 저장되어 있어야 한다.
+    public ImportResult importMembers(Stream<Member> members) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long start = System.nanoTime();
+        long rows = 0;
+
+        Iterator<Member> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            Long chunkRows = transactionTemplate.execute(status -> persistChunk(iterator));
+            rows += chunkRows;
+            log.debug("member import progress rows={} elapsed={}", rows, Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        ImportResult result = new ImportResult(rows, Duration.ofNanos(System.nanoTime() - start));
+        log.info("member import done rows={} elapsed={} rows/sec={}",
+                result.getRows(), result.getElapsed(), String.format("%.0f", result.getRowsPerSecond()));
+        return result;
+    }
+
+    private long persistChunk(Iterator<Member> iterator) {
+        long rows = 0;
+        while (rows < chunkSize && iterator.hasNext()) {
+            em.persist(iterator.next());
+            if (++rows % flushSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return rows;
+    }
+}
@@ -0,0 +1,116 @@
+package jpa.queryDsl.service;
+
+import jpa.queryDsl.dto.TeamStatsDto;
+import jpa.queryDsl.dto.TeamStatsMismatch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * team_stats 재계산 / 정합성 검사
+ * 벌크 update/delete, 직접 실행한 SQL 처럼 TeamStatsEventListener를 거치지 않은 변경은 rebuild로 다시 맞춘다.
+ * rebuild는 행을 지우지 않고 제자리에서 update 한다. -> 동시에 커밋되는 증분 update는 행 락을 기다렸다가 새 값 위에 더해진다.
+ * (지웠다가 다시 넣으면 그 사이 증분 update가 0건이 되어 사라진다.)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamStatsService {
+
+    private static final String AGGREGATE = "select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+            + " from team t left join member m on m.team = t.team_id";
+    private static final String REFRESH = "update team_stats s set (member_count, age_sum, age_min, age_max) ="
+            + " (select count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age) from member m where m.team = s.team_id)";
+    private static final String INSERT_MISSING = "insert into team_stats (team_id, member_count, age_sum, age_min, age_max) "
+            + AGGREGATE + " where not exists (select 1 from team_stats s where s.team_id = t.team_id)";
+
+    @PersistenceContext private EntityManager em;
+
+    // 전체 재계산
+    @Transactional
+    public int rebuild() {
+        em.flush();
+        em.createNativeQuery("delete from team_stats s where not exists (select 1 from team t where t.team_id = s.team_id)")
+                .executeUpdate();
+        int rows = em.createNativeQuery(REFRESH).executeUpdate()
+                + em.createNativeQuery(INSERT_MISSING + " group by t.team_id").executeUpdate();
+        log.info("team_stats rebuilt teams={}", rows);
+        return rows;
+    }
+
+    // 통계 행이 없는 팀만 채운다. (기능 도입 전에 만들어진 팀) 증분 반영은 행이 있다고 보고 update만 한다.
+    @Transactional
+    public int fillMissing() {
+        em.flush();
+        int rows = em.createNativeQuery(INSERT_MISSING + " group by t.team_id").executeUpdate();
+        if (rows > 0) {
+            log.info("team_stats filled missing teams={}", rows);
+        }
+        return rows;
+    }
+
+    // 지정한 팀만 재계산
+    @Transactional
+    public int rebuild(Collection<Long> teamIds) {
+        if (teamIds.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+        return em.createNativeQuery(REFRESH + " where s.team_id in (:teamIds)")
+                .setParameter("teamIds", teamIds)
+                .executeUpdate()
+                + em.createNativeQuery(INSERT_MISSING + " and t.team_id in (:teamIds) group by t.team_id")
+                .setParameter("teamIds", teamIds)
+                .executeUpdate();
+    }
+
+    // 저장된 통계와 member 테이블에서 새로 구한 값이 다른 팀 (통계 행이 없거나 남아있는 것도 포함)
+    @Transactional(readOnly = true)
+    public List<TeamStatsMismatch> check() {
+        Map<Long, TeamStatsDto> expected = toMap(em.createNativeQuery(AGGREGATE + " group by t.team_id").getResultList());
+        Map<Long, TeamStatsDto> actual = toMap(em.createNativeQuery(
+                "select team_id, member_count, age_sum, age_min, age_max from team_stats").getResultList());
+
+        List<TeamStatsMismatch> mismatches = new ArrayList<>();
+        expected.forEach((teamId, stats) -> {
+            if (!Objects.equals(stats, actual.get(teamId))) {
+                mismatches.add(new TeamStatsMismatch(teamId, stats, actual.get(teamId)));
+            }
+        });
+        actual.forEach((teamId, stats) -> {
+            if (!expected.containsKey(teamId)) {
+                mismatches.add(new TeamStatsMismatch(teamId, null, stats));
+            }
+        });
+        if (!mismatches.isEmpty()) {
+            log.warn("team_stats mismatches={}", mismatches.size());
+        }
+        return mismatches;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, TeamStatsDto> toMap(List<?> rows) {
+        return ((List<Object[]>) rows).stream()
+                .map(row -> new TeamStatsDto(toLong(row[0]), null, toLong(row[1]), toLong(row[2]), toInteger(row[3]), toInteger(row[4])))
+                .collect(Collectors.toMap(TeamStatsDto::getTeamId, Function.identity()));
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static Integer toInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+}
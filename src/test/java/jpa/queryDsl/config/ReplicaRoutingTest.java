@@ -0,0 +1,139 @@
+package jpa.queryDsl.config;
+
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.MemberJpaRepository;
+import jpa.queryDsl.repository.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// H2 메모리 DB 3개 : primary + replica 2개, replica 스키마와 데이터는 직접 넣는다. (복제 대신)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingPrimary;DB_CLOSE_DELAY=-1",
+        "member.replica.enabled=true",
+        "member.replica.check-interval=1h",
+        "member.replica.nodes[0].name=replica1",
+        "member.replica.nodes[0].url=jdbc:h2:mem:routingReplica1;DB_CLOSE_DELAY=-1",
+        "member.replica.nodes[0].username=sa",
+        "member.replica.nodes[0].lag-query=select lag_seconds from replica_lag",
+        "member.replica.nodes[1].name=replica2",
+        "member.replica.nodes[1].url=jdbc:h2:mem:routingReplica2;DB_CLOSE_DELAY=-1",
+        "member.replica.nodes[1].username=sa",
+        "member.replica.nodes[1].lag-query=select lag_seconds from replica_lag"
+})
+class ReplicaRoutingTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired ReplicaPool replicaPool;
+    @Autowired HealthIndicator replicasHealthIndicator;
+
+    @BeforeEach
+    public void before() {
+        for (ReplicaPool.Replica replica : replicaPool.getReplicas()) {
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getDataSource());
+            jdbc.execute("create table if not exists team (team_id bigint primary key, name varchar(255))");
+            jdbc.execute("create table if not exists member (member_id bigint primary key, age integer not null, username varchar(255), team bigint)");
+            jdbc.execute("create table if not exists replica_lag (lag_seconds bigint)");
+            jdbc.execute("delete from member");
+            jdbc.execute("delete from replica_lag");
+            jdbc.update("insert into member (member_id, age, username) values (1, 10, ?)", replica.getName() + "Member");
+            jdbc.update("insert into replica_lag values (0)");
+        }
+        replicaPool.checkNow();
+    }
+
+    @Test
+    public void readOnlyRoutingTest() throws Exception {
+        // when : 읽기 전용 트랜잭션은 replica 두 곳에 번갈아 간다.
+        Set<String> usernames = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            usernames.addAll(usernames(memberRepository.search(new SearchCond())));
+        }
+
+        // then
+        assertThat(usernames).containsExactlyInAnyOrder("replica1Member", "replica2Member");
+    }
+
+    @Test
+    public void writeRoutingTest() throws Exception {
+        // when : 쓰기는 primary
+        Member member = new Member("primaryMember", 20);
+        memberJpaRepository.save(member);
+
+        // then : replica엔 없다.
+        assertThat(usernames(memberRepository.search(new SearchCond("primaryMember", null, null, null)))).isEmpty();
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    public void lagFallbackTest() throws Exception {
+        // given : replica2 복제 지연 60초
+        new JdbcTemplate(replicaPool.getReplicas().get(1).getDataSource()).update("update replica_lag set lag_seconds = 60");
+        replicaPool.checkNow();
+
+        // when, then : replica1만 사용
+        for (int i = 0; i < 4; i++) {
+            assertThat(usernames(memberRepository.search(new SearchCond()))).containsExactly("replica1Member");
+        }
+        assertThat(replicasHealthIndicator.health().getStatus().getCode()).isEqualTo("DEGRADED");
+
+        // given : replica1도 지연 -> 모두 빠지면 primary에서 읽는다.
+        new JdbcTemplate(replicaPool.getReplicas().get(0).getDataSource()).update("update replica_lag set lag_seconds = 60");
+        replicaPool.checkNow();
+        Member member = new Member("primaryMember", 20);
+        memberJpaRepository.save(member);
+
+        // when, then
+        assertThat(usernames(memberRepository.search(new SearchCond()))).contains("primaryMember")
+                .doesNotContain("replica1Member", "replica2Member");
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    public void unreachableReplicaTest() throws Exception {
+        // given : 연결되지 않는 replica
+        ReplicaProperties properties = new ReplicaProperties();
+        ReplicaProperties.Node node = new ReplicaProperties.Node();
+        node.setName("down");
+        node.setUrl("jdbc:h2:tcp://localhost:1/~/down");
+        properties.getNodes().add(node);
+        properties.setCheckInterval(Duration.ofHours(1));
+
+        // when : 생성자에서 확인을 기다리지 않는다.
+        long start = System.nanoTime();
+        ReplicaPool pool = new ReplicaPool(properties);
+        long created = System.nanoTime() - start;
+        try {
+            pool.checkNow();
+
+            // then : 기본 30초가 아니라 connectionTimeout 만큼만 기다리고 뺀다.
+            ReplicaPool.Replica replica = pool.getReplicas().get(0);
+            assertThat(Duration.ofNanos(created)).isLessThan(Duration.ofMillis(500));
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+            assertThat(replica.getDataSource().getConnectionTimeout()).isEqualTo(1000);
+            assertThat(replica.getDataSource().getValidationTimeout()).isEqualTo(500);
+            assertThat(replica.isAvailable()).isFalse();
+            assertThat(pool.select()).isNull();
+        } finally {
+            pool.destroy();
+        }
+    }
+
+    private List<String> usernames(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+    }
+}
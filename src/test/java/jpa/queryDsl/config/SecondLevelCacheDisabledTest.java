@@ -0,0 +1,26 @@
+package jpa.queryDsl.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// member.cache.enabled=false(기본)면 hibernate-jcache가 클래스패스에 있어도 2차/쿼리 캐시를 쓰지 않는다.
+@SpringBootTest
+class SecondLevelCacheDisabledTest {
+
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void disabledTest() throws Exception {
+        SessionFactoryOptions options = entityManagerFactory.unwrap(SessionFactory.class).getSessionFactoryOptions();
+
+        assertThat(options.isSecondLevelCacheEnabled()).isFalse();
+        assertThat(options.isQueryCacheEnabled()).isFalse();
+    }
+}
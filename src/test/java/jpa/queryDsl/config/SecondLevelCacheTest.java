@@ -0,0 +1,104 @@
+package jpa.queryDsl.config;
+
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.repository.MemberRepository;
+import jpa.queryDsl.support.SqlCapture;
+import jpa.queryDsl.support.SqlCaptureExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"member.cache.enabled=true", "member.cache.query-cache=true"})
+@ExtendWith(SqlCaptureExtension.class)
+class SecondLevelCacheTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired HibernateCacheEndpoint hibernateCacheEndpoint;
+    @Autowired CacheManager hibernateCacheManager;
+
+    // 커밋한 데이터라 롤백되지 않으므로 직접 지운다.
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<Long> memberIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!memberIds.isEmpty()) {
+                em.createQuery("delete from Member m where m.id in :memberIds").setParameter("memberIds", memberIds).executeUpdate();
+            }
+            if (!teamIds.isEmpty()) {
+                em.createQuery("delete from Member m where m.team.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+                em.createQuery("delete from Team t where t.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+                em.createNativeQuery("delete from team_stats where team_id in (:teamIds)").setParameter("teamIds", teamIds).executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void teamCacheTest() throws Exception {
+        // given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("cacheTeam");
+            em.persist(team);
+            em.persist(new Member("cacheMember", 10, team));
+            return team.getId();
+        });
+        teamIds.add(teamId);
+
+        // when : 트랜잭션(영속성 컨텍스트)이 달라도 두 번째부터는 2차 캐시에서 가져온다.
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId).getMembers().size());
+        SqlCapture.clear();
+        int size = tx.execute(status -> em.find(Team.class, teamId).getMembers().size());
+
+        // then
+        assertThat(size).isEqualTo(1);
+        assertThat(SqlCapture.statements()).isEmpty();
+
+        Map<String, Map<String, Object>> regions = hibernateCacheEndpoint.regions();
+        assertThat((Long) regions.get(SecondLevelCacheProperties.TEAM).get("hits")).isGreaterThan(0);
+        assertThat((Long) regions.get(SecondLevelCacheProperties.TEAM_MEMBERS).get("hits")).isGreaterThan(0);
+    }
+
+    @Test
+    public void searchQueryCacheTest() throws Exception {
+        // given
+        SearchCond cond = new SearchCond("queryCacheMember", null, null, null);
+        memberIds.add(memberRepository.save(new Member("queryCacheMember", 10)).getId());
+
+        // when
+        memberRepository.search(cond);
+        SqlCapture.clear();
+        int size = memberRepository.search(cond).size();
+
+        // then
+        assertThat(size).isEqualTo(1);
+        assertThat(SqlCapture.statements()).isEmpty();
+    }
+
+    @Test
+    public void cacheManagerTest() throws Exception {
+        // JVM 기본 CacheManager를 쓰지 않아서 다른 컨텍스트가 닫혀도 리전이 살아 있다.
+        assertThat(hibernateCacheManager.getURI())
+                .isNotEqualTo(Caching.getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider").getDefaultURI());
+        assertThat(hibernateCacheManager.getCache(SecondLevelCacheProperties.TEAM)).isNotNull();
+        assertThat((Long) hibernateCacheEndpoint.regions().get(SecondLevelCacheProperties.TEAM).get("evictions")).isZero();
+    }
+}
@@ -0,0 +1,111 @@
+package jpa.queryDsl.metrics;
+
+import jpa.queryDsl.config.QueryDiagnosticsEndpoint;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.MemberJpaRepository;
+import jpa.queryDsl.repository.support.SupportTestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryDiagnosticsTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired QueryDiagnostics queryDiagnostics;
+    @Autowired SupportTestRepository supportTestRepository;
+    @Autowired QueryDiagnosticsEndpoint queryDiagnosticsEndpoint;
+
+    @AfterEach
+    public void after() {
+        ReflectionTestUtils.setField(queryDiagnostics, "slowQueryThreshold", Duration.ofMillis(500));
+        ReflectionTestUtils.setField(queryDiagnostics, "maxRows", 10000L);
+    }
+
+    @Test
+    public void shapeTest() throws Exception {
+        // given
+        em.persist(new Member("diagnosticMember", 10));
+        em.persist(new Member("diagnosticMember", 20));
+        em.flush();
+        queryDiagnostics.reset();
+
+        // when : 같은 모양 두 번
+        memberJpaRepository.findByUsernameQueryDsl("diagnosticMember");
+        memberJpaRepository.findByUsernameQueryDsl("nobody");
+
+        // then
+        assertThat(queryDiagnostics.shapes()).hasSize(1);
+        QueryDiagnostics.ShapeStats stats = queryDiagnostics.shapes().get(0);
+        assertThat(stats.getJpql()).contains("member1.username = ?1");
+        assertThat(stats.getCount()).isEqualTo(2);
+        assertThat(stats.getRows()).isEqualTo(2);
+        assertThat(stats.getMaxRows()).isEqualTo(2);
+        assertThat(queryDiagnostics.slowQueries()).isEmpty();
+    }
+
+    @Test
+    public void slowQueryTest() throws Exception {
+        // given : 기준을 낮춰서 모든 쿼리가 걸리게
+        em.persist(new Member("diagnosticMember", 10));
+        em.flush();
+        queryDiagnostics.reset();
+        ReflectionTestUtils.setField(queryDiagnostics, "slowQueryThreshold", Duration.ZERO);
+
+        // when
+        memberJpaRepository.findByUsernameQueryDsl("diagnosticMember");
+
+        // then
+        assertThat(queryDiagnostics.slowQueries()).hasSize(1);
+        QueryDiagnostics.SlowQuery slowQuery = queryDiagnostics.slowQueries().get(0);
+        assertThat(slowQuery.getOrigin()).isEqualTo("MemberJpaRepository.findByUsernameQueryDsl");
+        assertThat(slowQuery.getReason()).isEqualTo("slow");
+        assertThat(slowQuery.getRows()).isEqualTo(1);
+        assertThat(QueryOrigin.get()).isEqualTo(QueryOrigin.UNKNOWN);
+    }
+
+    @Test
+    public void countQueryTest() throws Exception {
+        // given
+        em.persist(new Member("diagnosticMember", 10));
+        em.persist(new Member("diagnosticMember", 20));
+        em.flush();
+        queryDiagnostics.reset();
+
+        // when : applyPagination이 만든 카운트 쿼리
+        supportTestRepository.membersWithTeam("diagnosticMember", PageRequest.of(0, 1));
+
+        // then : 컨텐츠 쿼리와 카운트 쿼리 모두 기록
+        assertThat(queryDiagnostics.shapes()).extracting(QueryDiagnostics.ShapeStats::getJpql)
+                .hasSize(2)
+                .anyMatch(jpql -> jpql.startsWith("select count(member1)"));
+    }
+
+    @Test
+    public void endpointTest() throws Exception {
+        // given
+        memberJpaRepository.findAllQueryDsl();
+
+        // when
+        Map<String, Object> diagnostics = queryDiagnosticsEndpoint.diagnostics();
+
+        // then
+        assertThat(diagnostics).containsKeys("hibernate", "shapes", "slowQueries");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> hibernate = (Map<String, Object>) diagnostics.get("hibernate");
+        assertThat(hibernate.get("enabled")).isEqualTo(true);
+        assertThat((Long) hibernate.get("queries")).isPositive();
+    }
+}
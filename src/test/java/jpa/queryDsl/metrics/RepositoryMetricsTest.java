@@ -0,0 +1,74 @@
+package jpa.queryDsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MeterRegistry registry;
+
+    @Test
+    public void searchMetricsTest() throws Exception {
+        // given
+        em.persist(new Member("metricMember", 10));
+        em.persist(new Member("metricMember", 20));
+        em.flush();
+
+        // when : 레지스트리는 다른 테스트와 공유되므로 증가분으로 확인
+        String shape = "username+ageGoe+ageLoe";
+        long calls = timer(shape).count();
+        double rows = summary("repository.query.rows", shape).totalAmount();
+        double statements = summary("repository.query.statements", shape).totalAmount();
+        memberRepository.search(new SearchCond("metricMember", null, 10, 30));
+
+        // then
+        assertThat(timer(shape).count()).isEqualTo(calls + 1);
+        assertThat(summary("repository.query.rows", shape).totalAmount()).isEqualTo(rows + 2);
+        assertThat(summary("repository.query.statements", shape).totalAmount()).isEqualTo(statements + 1);
+    }
+
+    @Test
+    public void countSkippedTest() throws Exception {
+        // given
+        em.persist(new Member("skipMember", 10));
+
+        // when : 결과가 페이지 크기보다 적으면 카운트 쿼리 생략
+        double before = skipped();
+        memberRepository.searchPageComplex(new SearchCond("skipMember", null, null, null), PageRequest.of(0, 10));
+
+        // then
+        assertThat(skipped()).isEqualTo(before + 1);
+    }
+
+    private Timer timer(String shape) {
+        return registry.timer("repository.query",
+                "repository", "MemberRepositoryImpl", "method", "search", "shape", shape, "outcome", "success");
+    }
+
+    private DistributionSummary summary(String name, String shape) {
+        return registry.summary(name, "repository", "MemberRepositoryImpl", "method", "search", "shape", shape);
+    }
+
+    private double skipped() {
+        return registry.find("repository.query.count")
+                .tags("repository", "MemberRepositoryImpl", "shape", "username", "outcome", "skipped")
+                .counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+}
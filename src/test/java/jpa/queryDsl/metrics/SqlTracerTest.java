@@ -0,0 +1,106 @@
+package jpa.queryDsl.metrics;
+
+import jpa.queryDsl.config.SqlTraceEndpoint;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SqlTracerTest {
+
+    @Autowired DataSource dataSource;
+    @Autowired MemberRepository memberRepository;
+    @Autowired SqlTracer sqlTracer;
+    @Autowired SqlTraceEndpoint sqlTraceEndpoint;
+
+    @BeforeEach
+    public void before() {
+        sqlTracer.reset();
+    }
+
+    @AfterEach
+    public void after() {
+        sqlTraceEndpoint.configure(0.01, 200L);
+        sqlTracer.reset();
+    }
+
+    @Test
+    public void wrapTest() throws Exception {
+        assertThat(dataSource).isInstanceOf(TracingDataSource.class);
+    }
+
+    @Test
+    public void sampledTest() throws Exception {
+        // given : 전부 샘플링
+        sqlTraceEndpoint.configure(1.0, null);
+
+        // when
+        memberRepository.search(new SearchCond("traceMember", null, null, null));
+
+        // then : SQL + 바인딩 값
+        assertThat(sqlTracer.getSampled()).isEqualTo(sqlTracer.getStatements()).isPositive();
+        SqlTracer.Trace trace = sqlTracer.recent().get(0);
+        assertThat(trace.getSql()).contains("from member");
+        assertThat(trace.getParams()).containsExactly("traceMember");
+        assertThat(trace.isSuccess()).isTrue();
+        assertThat(sqlTracer.slow()).isEmpty();
+    }
+
+    @Test
+    public void unsampledTest() throws Exception {
+        // given : 샘플링 안함
+        sqlTraceEndpoint.configure(0.0, null);
+
+        // when
+        memberRepository.search(new SearchCond("traceMember", null, null, null));
+
+        // then : 개수만 센다.
+        assertThat(sqlTracer.getStatements()).isPositive();
+        assertThat(sqlTracer.getSampled()).isZero();
+        assertThat(sqlTracer.recent()).isEmpty();
+    }
+
+    @Test
+    public void slowTest() throws Exception {
+        // given : 샘플링 안함 + 기준 0ms -> 모든 문장이 slow
+        sqlTraceEndpoint.configure(0.0, 0L);
+
+        // when
+        memberRepository.search(new SearchCond("traceMember", null, null, null));
+
+        // then : 샘플링 안된 문장은 파라미터 없이 SQL만
+        Map<String, Object> trace = sqlTraceEndpoint.trace();
+        @SuppressWarnings("unchecked")
+        List<SqlTracer.Trace> slow = (List<SqlTracer.Trace>) trace.get("slow");
+        assertThat(slow).isNotEmpty();
+        assertThat(slow.get(0).getSql()).contains("from member");
+        assertThat(slow.get(0).getParams()).isNull();
+        assertThat((List<?>) trace.get("recent")).isEmpty();
+    }
+
+    @Test
+    public void bufferTest() throws Exception {
+        // given : 크기 3 -> 4로 올림
+        SqlTraceBuffer<Integer> buffer = new SqlTraceBuffer<>(3);
+
+        // when
+        for (int i = 0; i < 6; i++) {
+            buffer.add(i);
+        }
+
+        // then : 오래된 것부터 덮어쓰고 최근 것부터
+        assertThat(buffer.capacity()).isEqualTo(4);
+        assertThat(buffer.added()).isEqualTo(6);
+        assertThat(buffer.snapshot()).containsExactly(5, 4, 3, 2);
+    }
+}
@@ -0,0 +1,173 @@
+package jpa.queryDsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpa.queryDsl.config.MemberSearchExecutor;
+import jpa.queryDsl.config.MemberSearchExecutorProperties;
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 비동기 검색은 다른 스레드, 다른 커넥션에서 실행되기 때문에 테스트 데이터를 커밋해야 한다. -> @Transactional 없음
+@SpringBootTest
+class MemberAsyncSearchTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberSearchExecutor searchExecutor;
+    @Autowired MemberSearchExecutorProperties executorProperties;
+    @Autowired EntityManager em;
+    @Autowired MeterRegistry registry;
+
+    private final List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 5; i++) {
+            members.add(memberRepository.save(new Member("asyncMember", 10 + i)));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAll(members);
+    }
+
+    @Test
+    public void searchAsyncTest() throws Exception {
+        // given
+        SearchCond cond = new SearchCond("asyncMember", null, 12, null);
+
+        // when
+        List<MemberTeamDto> result = memberRepository.searchAsync(cond).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).extracting("age").containsExactlyInAnyOrder(12, 13, 14);
+    }
+
+    @Test
+    public void searchPageAsyncTest() throws Exception {
+        // given
+        SearchCond cond = new SearchCond("asyncMember", null, null, null);
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        // when
+        Page<MemberTeamDto> result = memberRepository.searchPageComplexAsync(cond, pageRequest).get(5, TimeUnit.SECONDS);
+
+        // then : 동기 버전과 결과가 같다.
+        Page<MemberTeamDto> expected = memberRepository.searchPageComplex(cond, pageRequest);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("memberId")
+                .containsExactlyElementsOf(expected.map(MemberTeamDto::getMemberId).getContent());
+    }
+
+    @Test
+    public void queryTimeoutTest() throws Exception {
+        // when : 작업 스레드의 트랜잭션에서 쿼리를 만든다.
+        Map<String, Object> hints = searchExecutor.supply(() -> em.createQuery("select m from Member m").getHints())
+                .get(5, TimeUnit.SECONDS);
+
+        // then : 남은 타임아웃이 쿼리 타임아웃 힌트로 붙는다.
+        assertThat(hints).containsKey("javax.persistence.query.timeout");
+    }
+
+    @Test
+    public void metricsTest() throws Exception {
+        // given
+        SearchCond cond = new SearchCond("asyncMember", null, null, null);
+        long count = registry.timer("repository.query", "repository", "MemberRepositoryImpl", "method", "searchAsync",
+                "shape", "username", "outcome", "success").count();
+        double rows = registry.summary("repository.query.rows", "repository", "MemberRepositoryImpl", "method", "searchAsync",
+                "shape", "username").totalAmount();
+
+        // when
+        memberRepository.searchAsync(cond).get(5, TimeUnit.SECONDS);
+
+        // then : 제출이 아닌 작업 실행이 한 번 기록된다.
+        assertThat(registry.timer("repository.query", "repository", "MemberRepositoryImpl", "method", "searchAsync",
+                "shape", "username", "outcome", "success").count()).isEqualTo(count + 1);
+        assertThat(registry.summary("repository.query.rows", "repository", "MemberRepositoryImpl", "method", "searchAsync",
+                "shape", "username").totalAmount()).isEqualTo(rows + 5);
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        // given : 스레드가 모두 실행 중이라 대기열에 들어간 작업
+        int poolSize = executorProperties.getPoolSize();
+        CountDownLatch running = new CountDownLatch(poolSize);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> blocked = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            blocked.add(searchExecutor.supply(() -> {
+                running.countDown();
+                return await(release);
+            }));
+        }
+        running.await(5, TimeUnit.SECONDS);
+        AtomicBoolean executed = new AtomicBoolean();
+        CompletableFuture<Boolean> queued = searchExecutor.supply(() -> executed.getAndSet(true));
+
+        // when
+        queued.cancel(false);
+        release.countDown();
+        CompletableFuture.allOf(blocked.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        // then : 취소된 작업은 실행되지 않는다.
+        assertThat(searchExecutor.supply(executed::get).get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    public void rejectTest() throws Exception {
+        // given : 스레드가 모두 실행 중일 때 대기열을 채운다.
+        int poolSize = executorProperties.getPoolSize();
+        CountDownLatch running = new CountDownLatch(poolSize);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> blocked = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            blocked.add(searchExecutor.supply(() -> {
+                running.countDown();
+                return await(release);
+            }));
+        }
+        running.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < executorProperties.getQueueCapacity(); i++) {
+            blocked.add(searchExecutor.supply(() -> await(release)));
+        }
+
+        try {
+            // when, then : 기다리지 않고 바로 거절
+            assertThatThrownBy(() -> memberRepository.searchAsync(new SearchCond("asyncMember", null, null, null)))
+                    .isInstanceOf(TaskRejectedException.class);
+        } finally {
+            release.countDown();
+            CompletableFuture.allOf(blocked.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package jpa.queryDsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.repository.support.CountCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 커밋 시점 무효화를 보려고 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class MemberCountCacheTest {
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberCountCache memberCountCache;
+
+    private final SearchCond cond = new SearchCond("countCacheMember", null, null, null);
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                queryFactory.delete(member).where(member.username.eq("countCacheMember")).execute());
+        memberCountCache.invalidateAll();
+    }
+
+    @Test
+    public void rollbackTest() throws Exception {
+        // given
+        save(2);
+        assertThat(total()).isEqualTo(2);
+
+        // when : 쓰는 트랜잭션 안에서 센 값은 그 트랜잭션만 보고 롤백된다.
+        long inside = new TransactionTemplate(transactionManager).execute(status -> {
+            em.persist(new Member("countCacheMember", 30));
+            em.flush();
+            status.setRollbackOnly();
+            return total();
+        });
+
+        // then : 캐시에는 커밋된 값만
+        assertThat(inside).isEqualTo(3);
+        assertThat(total()).isEqualTo(2);
+    }
+
+    @Test
+    public void afterCommitTest() throws Exception {
+        // given : 캐시에 2
+        save(2);
+        assertThat(total()).isEqualTo(2);
+
+        // when : 다른 트랜잭션이 커밋하면 비워진다.
+        save(1);
+
+        // then
+        assertThat(total()).isEqualTo(3);
+    }
+
+    @Test
+    public void generationTest() throws Exception {
+        // given
+        CountCache<String> cache = new CountCache<>(Duration.ofMinutes(1), 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        // when : 세는 도중에 무효화되면 그 값은 저장하지 않는다.
+        cache.get("key", () -> {
+            loads.incrementAndGet();
+            cache.invalidateAll();
+            return 1;
+        });
+        cache.get("key", () -> loads.incrementAndGet());
+        cache.get("key", () -> loads.incrementAndGet());
+
+        // then
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private void save(int count) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                em.persist(new Member("countCacheMember", 10 + i));
+            }
+        });
+    }
+
+    // 페이지 크기 1 -> 한 건 이상이면 카운트 쿼리 실행
+    private long total() {
+        return memberRepository.searchPageComplex(cond, PageRequest.of(0, 1)).getTotalElements();
+    }
+}
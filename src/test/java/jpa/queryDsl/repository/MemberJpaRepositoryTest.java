@@ -4,14 +4,19 @@ import jpa.queryDsl.dto.MemberTeamDto;
 import jpa.queryDsl.dto.SearchCond;
 import jpa.queryDsl.entity.Member;
 import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.support.SqlCapture;
+import jpa.queryDsl.support.SqlCaptureExtension;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +25,7 @@ import static org.assertj.core.api.Assertions.*;
 @SpringBootTest
 @Transactional
 @Rollback(value = false)
+@ExtendWith(SqlCaptureExtension.class)
 class MemberJpaRepositoryTest {
 
     @Autowired EntityManager em;
@@ -111,4 +117,86 @@ class MemberJpaRepositoryTest {
             System.out.println("memberTeamDto = " + memberTeamDto);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @Rollback
+    public void streamTest() throws Exception {
+        // given
+        Team team = new Team("streamTeam");
+        em.persist(team);
+        em.persist(new Member("streamMemberA", 10, team));
+        em.persist(new Member("streamMemberB", 20, team));
+
+        // when
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.streamByWhere(new SearchCond(null, "streamTeam", null, null), result::add);
+
+        // then
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("streamMemberA", "streamMemberB");
+        assertThat(result).extracting("teamName").containsOnly("streamTeam");
+    }
+
+    @Test
+    @Rollback
+    public void batchSearchTest() throws Exception {
+        // given
+        Team teamA = new Team("batchTeamA");
+        Team teamB = new Team("batchTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("batchMember" + i, 10 * (i + 1), i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+
+        List<SearchCond> conds = List.of(
+                new SearchCond("batchMember0", null, 10, 40),
+                new SearchCond(null, "batchTeamB", 10, 40),
+                new SearchCond("batchMember2", "batchTeamB", 10, 40),
+                new SearchCond("batchMember0", null, 10, 40), // 중복
+                new SearchCond(null, null, 30, 40),           // 이름 조건 없음
+                new SearchCond("batchMember3", null, 30, 40),
+                new SearchCond("batchMember1", null, 30, 40));
+
+        // when
+        SqlCapture.clear();
+        List<List<MemberTeamDto>> results = memberJpaRepository.searchByWhereBatch(conds);
+        int statements = SqlCapture.statements().size();
+
+        // then : 나이 범위 2개 -> 쿼리 2번, 조건별 결과는 searchByWhere와 같다.
+        assertThat(statements).isEqualTo(2);
+        assertThat(results).hasSize(conds.size());
+        for (int i = 0; i < conds.size(); i++) {
+            assertThat(results.get(i)).as("cond %d", i)
+                    .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByWhere(conds.get(i)));
+        }
+        assertThat(results.get(1)).extracting("username").containsExactlyInAnyOrder("batchMember1", "batchMember3");
+        assertThat(results.get(6)).isEmpty();
+    }
+
+    @Test
+    @Rollback
+    public void readWriteFetchTest() throws Exception {
+        // given
+        Member saved = new Member("readWriteMember", 10);
+        em.persist(saved);
+        em.flush();
+        em.clear();
+
+        // when : 바깥 읽기/쓰기 트랜잭션에 참여해서 조회한 엔티티를 수정
+        Member member = memberJpaRepository.findAll().stream()
+                .filter(m -> m.getId().equals(saved.getId()))
+                .findFirst().orElseThrow();
+        boolean readOnly = em.unwrap(Session.class).isReadOnly(member);
+        member.setAge(20);
+        boolean sameInstance = memberJpaRepository.findById(saved.getId()).orElseThrow() == member;
+        em.flush();
+        em.clear();
+
+        // then : READ_ONLY 힌트가 없어서 변경 감지로 update 된다.
+        assertThat(readOnly).isFalse();
+        assertThat(sameInstance).isTrue();
+        assertThat(em.find(Member.class, saved.getId()).getAge()).isEqualTo(20);
+    }
+}
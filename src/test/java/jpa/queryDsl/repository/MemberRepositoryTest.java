@@ -5,22 +5,29 @@ import jpa.queryDsl.dto.SearchCond;
 import jpa.queryDsl.entity.Member;
 import jpa.queryDsl.entity.QMember;
 import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.support.QueryBudget;
+import jpa.queryDsl.support.SqlCapture;
+import jpa.queryDsl.support.SqlCaptureExtension;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(SqlCaptureExtension.class)
 class MemberRepositoryTest {
 
     @Autowired EntityManager em;
@@ -98,6 +105,162 @@ class MemberRepositoryTest {
         }
     }
     
+    @Test
+    public void countCacheTest() throws Exception {
+        // given
+        em.persist(new Member("countMember", 10));
+        em.persist(new Member("countMember", 20));
+        SearchCond cond = new SearchCond("countMember", null, null, null);
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        // when
+        long before = memberRepository.searchPageComplex(cond, pageRequest).getTotalElements();
+        em.persist(new Member("countMember", 30));
+        em.flush(); // 회원을 변경한 트랜잭션이라 이후 카운트는 캐시를 거치지 않는다.
+        long after = memberRepository.searchPageComplex(cond, pageRequest).getTotalElements();
+
+        // then
+        assertThat(before).isEqualTo(2);
+        assertThat(after).isEqualTo(3);
+    }
+
+    /**
+     * 조건 조합 16가지 모두 카운트 쿼리 SQL 검증
+     * 팀 이름 조건이 있을 때만 team을 inner join, 나머지는 member 단일 테이블 count
+     */
+    @Test
+    public void countQueryJoinTest() throws Exception {
+        // given
+        Team team = new Team("countJoinTeam");
+        em.persist(team);
+        em.persist(new Member("countJoinMember", 10, team));
+
+        for (int shape = 0; shape < 16; shape++) {
+            SearchCond cond = new SearchCond(
+                    (shape & 1) != 0 ? "countJoinMember" : null,
+                    (shape & 2) != 0 ? "countJoinTeam" : null,
+                    (shape & 4) != 0 ? 10 : null,
+                    (shape & 8) != 0 ? 10 : null);
+
+            // when
+            em.flush();
+            SqlCapture.clear();
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(cond, PageRequest.of(0, 1)); // 한 건 이상이라 카운트 쿼리 실행
+
+            // then
+            List<String> countSqls = SqlCapture.statements().stream()
+                    .filter(sql -> sql.startsWith("select count("))
+                    .collect(Collectors.toList());
+            assertThat(result.getTotalElements()).isGreaterThanOrEqualTo(1);
+            assertThat(countSqls).as("shape %d", shape).hasSize(1);
+
+            String countSql = countSqls.get(0);
+            assertThat(countSql).startsWith("select count(member0_.member_id) as col_0_0_ from member member0_");
+            if (cond.getTeamName() != null) {
+                assertThat(countSql).as("shape %d", shape)
+                        .contains("inner join team team1_ on member0_.team=team1_.team_id")
+                        .contains("team1_.name=?");
+            } else {
+                assertThat(countSql).as("shape %d", shape)
+                        .doesNotContain("join")
+                        .doesNotContain("team");
+            }
+            assertThat(countSql.contains("member0_.username=?")).isEqualTo(cond.getUsername() != null);
+            assertThat(countSql.contains("member0_.age>=?")).isEqualTo(cond.getAgeGoe() != null);
+            assertThat(countSql.contains("member0_.age<=?")).isEqualTo(cond.getAgeLoe() != null);
+        }
+    }
+
+    @Test
+    public void searchTemplateTest() throws Exception {
+        // given
+        Team teamA = new Team("templateTeamA");
+        Team teamB = new Team("templateTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("templateMember" + (i % 2), i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+
+        for (int shape = 0; shape < MemberSearchQueryTemplates.SHAPES; shape++) {
+            SearchCond cond = new SearchCond(
+                    (shape & 1) != 0 ? "templateMember0" : null,
+                    (shape & 2) != 0 ? "templateTeamA" : null,
+                    (shape & 4) != 0 ? 20 : null,
+                    (shape & 8) != 0 ? 60 : null);
+
+            // when
+            List<MemberTeamDto> result = memberRepository.search(cond);
+
+            // then : QueryDsl로 매번 만드는 searchPageComplex와 결과가 같아야 한다.
+            List<MemberTeamDto> expected = memberRepository.searchPageComplex(cond, PageRequest.of(0, Integer.MAX_VALUE)).getContent();
+            assertThat(MemberSearchQueryTemplates.shapeOf(cond)).isEqualTo(shape);
+            assertThat(result).as("shape %d", shape).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void fetchPlanTest() throws Exception {
+        // given : 팀 3개, 팀마다 회원 2명
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("planTeam" + i);
+            em.persist(team);
+            em.persist(new Member("planMember", 10, team));
+            em.persist(new Member("planMember", 20, team));
+        }
+        em.flush();
+        em.clear();
+        QMember member = QMember.member;
+
+        // when, then : 지연 로딩 - 회원 1번, 팀 배치 1번, 팀의 회원 컬렉션 배치 1번
+        QueryBudget.assertMaxStatements(3, () -> memberRepository
+                .findAllWithPlan(member.username.eq("planMember"), MemberFetchPlan.NONE)
+                .forEach(m -> m.getTeam().getMembers().size()));
+        em.clear();
+
+        // when, then : 엔티티 그래프 - 한 번에 조인
+        List<Member> result = QueryBudget.assertMaxStatements(1, () -> {
+            List<Member> members = memberRepository.findByUsernameWithPlan("planMember", MemberFetchPlan.TEAM_MEMBERS);
+            members.forEach(m -> m.getTeam().getMembers().size());
+            return members;
+        });
+        assertThat(result).hasSize(6);
+    }
+
+    @Test
+    public void slicePageTest() throws Exception {
+        // given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("sliceMember", i, teamA));
+        }
+
+        // when
+        SearchCond cond = new SearchCond("sliceMember", null, null, null);
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(cond, null, 2);
+        String cursor = MemberCursor.encode(first.getContent().get(1).getMemberId());
+        Slice<MemberTeamDto> second = memberRepository.searchSlice(cond, cursor, 2);
+        String lastCursor = MemberCursor.encode(second.getContent().get(1).getMemberId());
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(cond, lastCursor, 2);
+
+        // then
+        assertThat(first.getContent()).extracting("age").containsExactly(0, 1);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("age").containsExactly(2, 3);
+        assertThat(second.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting("age").containsExactly(4);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void invalidCursorTest() throws Exception {
+        assertThrows(InvalidCursorException.class, () -> MemberCursor.decode("not-a-cursor"));
+        // 리포지토리 예외 변환을 거쳐도 그대로 올라와야 컨트롤러에서 400으로 보낼 수 있다.
+        SearchCond cond = new SearchCond("sliceMember", null, null, null);
+        assertThrows(InvalidCursorException.class, () -> memberRepository.searchSlice(cond, "not-a-cursor", 2));
+    }
+
     @Test
     public void queryDslPredicateExecutorTest() throws Exception {
         // given
@@ -0,0 +1,136 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 인덱스는 커밋 후에 반영되므로 트랜잭션을 직접 커밋한다. 다른 테스트와 섞이지 않게 별도 메모리 DB
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:searchIndex;DB_CLOSE_DELAY=-1",
+        "member.search.index.enabled=true"
+})
+class MemberSearchIndexTest {
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberSearchIndex memberSearchIndex;
+    @Autowired MemberSearchQueryTemplates searchQueryTemplates;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+        memberSearchIndex.reload();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 40; i++) {
+                em.persist(new Member("member" + (i % 4), i, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("member0", 25));
+        });
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        // given
+        List<SearchCond> conds = List.of(
+                new SearchCond(),
+                new SearchCond("member1", null, null, null),
+                new SearchCond(null, "teamA", 10, 30),
+                new SearchCond("member0", "teamA", 20, null),
+                new SearchCond("", "", null, 25),
+                new SearchCond("nobody", null, null, null),
+                new SearchCond(null, "nothing", null, null));
+
+        for (SearchCond cond : conds) {
+            // when
+            List<MemberTeamDto> result = memberRepository.search(cond);
+
+            // then : DB 템플릿 쿼리와 순서까지 같다. (order by member.id)
+            assertThat(result).as(cond.toString()).containsExactlyInAnyOrderElementsOf(sql(cond));
+            assertThat(result).as(cond.toString()).containsExactlyElementsOf(template(cond));
+        }
+        assertThat(memberSearchIndex.size()).isEqualTo(41);
+    }
+
+    @Test
+    public void changeTest() throws Exception {
+        // given
+        Long memberId = memberRepository.search(new SearchCond("member1", "teamB", 1, 1)).get(0).getMemberId();
+
+        // when : 팀 변경 + 나이 변경, 팀 이름 변경, 새 팀, 삭제
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member = em.find(Member.class, memberId);
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            member.changTeam(teamC);
+            member.setAge(99);
+            em.createQuery("select t from Team t where t.name = 'teamA'", Team.class).getSingleResult().setName("teamAA");
+            em.remove(em.createQuery("select m from Member m where m.team is null", Member.class).getSingleResult());
+        });
+        // 롤백된 변경은 반영되지 않는다.
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(1);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertThat(memberRepository.search(new SearchCond(null, "teamC", 99, 99)))
+                .extracting(MemberTeamDto::getMemberId).containsExactly(memberId);
+        assertThat(memberRepository.search(new SearchCond(null, "teamA", null, null))).isEmpty();
+        assertThat(memberRepository.search(new SearchCond(null, "teamAA", null, null))).hasSize(20);
+        assertThat(memberSearchIndex.size()).isEqualTo(40);
+        for (SearchCond cond : List.of(new SearchCond(), new SearchCond(null, "teamB", 0, 50))) {
+            assertThat(memberRepository.search(cond)).containsExactlyInAnyOrderElementsOf(sql(cond));
+        }
+    }
+
+    @Test
+    public void refreshTest() throws Exception {
+        // given : 벌크 연산은 리스너를 거치지 않는다.
+        List<Long> ids = transactionTemplate.execute(status -> {
+            em.createQuery("update Member m set m.age = m.age + 100 where m.username = 'member2'").executeUpdate();
+            return em.createQuery("select m.id from Member m where m.username = 'member2'", Long.class).getResultList();
+        });
+        assertThat(memberRepository.search(new SearchCond("member2", null, 100, null))).isEmpty();
+
+        // when
+        memberSearchIndex.refresh(ids);
+
+        // then
+        assertThat(memberRepository.search(new SearchCond("member2", null, 100, null))).hasSize(10);
+    }
+
+    // 같은 조건의 DB 조회 결과 (searchPageComplex는 인덱스를 쓰지 않는다)
+    private List<MemberTeamDto> template(SearchCond cond) {
+        return new TransactionTemplate(transactionManager).execute(status ->
+                MemberSearchQueryTemplates.toDtos(searchQueryTemplates.createQuery(cond).getResultList()));
+    }
+
+    private List<MemberTeamDto> sql(SearchCond cond) {
+        return memberRepository.searchPageComplex(cond, PageRequest.of(0, 1000)).getContent();
+    }
+}
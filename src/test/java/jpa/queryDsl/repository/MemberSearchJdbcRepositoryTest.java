@@ -0,0 +1,58 @@
+package jpa.queryDsl.repository;
+
+import jpa.queryDsl.dto.MemberTeamColumns;
+import jpa.queryDsl.dto.MemberTeamDto;
+import jpa.queryDsl.dto.SearchCond;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchJdbcRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberSearchJdbcRepository memberSearchJdbcRepository;
+
+    @Test
+    public void searchTest() throws Exception {
+        // given
+        Team team = new Team("jdbcTeam");
+        em.persist(team);
+        for (int i = 0; i < 30; i++) {
+            em.persist(new Member("jdbcMember" + (i % 3), i, team));
+        }
+        em.persist(new Member("jdbcMember0", 15));
+        em.flush(); // JDBC는 flush된 것만 보인다.
+
+        for (SearchCond cond : List.of(
+                new SearchCond("jdbcMember0", null, null, null),
+                new SearchCond(null, "jdbcTeam", 10, 20),
+                new SearchCond("jdbcMember1", "jdbcTeam", null, 5))) {
+            // when
+            List<MemberTeamDto> dtos = memberSearchJdbcRepository.search(cond);
+            MemberTeamColumns columns = memberSearchJdbcRepository.searchColumns(cond);
+
+            // then
+            List<MemberTeamDto> expected = memberRepository.search(cond);
+            assertThat(dtos).as(cond.toString()).containsExactlyInAnyOrderElementsOf(expected);
+            List<MemberTeamDto> fromColumns = new ArrayList<>();
+            for (int i = 0; i < columns.size(); i++) {
+                fromColumns.add(columns.toDto(i));
+            }
+            assertThat(fromColumns).as(cond.toString()).containsExactlyInAnyOrderElementsOf(expected);
+        }
+        assertThat(memberSearchJdbcRepository.search(new SearchCond("jdbcMember0", null, 15, 15)))
+                .extracting(MemberTeamDto::getTeamId).containsOnly(team.getId(), null);
+    }
+}
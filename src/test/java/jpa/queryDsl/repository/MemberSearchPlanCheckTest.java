@@ -0,0 +1,28 @@
+package jpa.queryDsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberSearchPlanCheckTest {
+
+    @Autowired MemberSearchPlanCheck memberSearchPlanCheck;
+
+    @Test
+    public void planTest() throws Exception {
+        // when
+        Map<Integer, String> plans = memberSearchPlanCheck.plans();
+
+        // then
+        assertThat(plans).hasSize(MemberSearchQueryTemplates.SHAPES);
+        assertThat(memberSearchPlanCheck.tableScans()).isEmpty();
+        assertThat(plans.get(1)).contains("IDX_MEMBER_USERNAME_AGE");
+        assertThat(plans.get(2)).contains("IDX_TEAM_NAME");
+        assertThat(plans.get(4)).contains("IDX_MEMBER_AGE");
+    }
+}
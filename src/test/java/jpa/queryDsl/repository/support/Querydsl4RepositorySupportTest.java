@@ -0,0 +1,211 @@
+package jpa.queryDsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.support.SqlCapture;
+import jpa.queryDsl.support.SqlCaptureExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static jpa.queryDsl.entity.QMember.member;
+import static jpa.queryDsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(SqlCaptureExtension.class)
+class Querydsl4RepositorySupportTest {
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired SupportTestRepository supportTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("supportTeamA");
+        Team teamB = new Team("supportTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 6; i++) {
+            em.persist(new Member("supportMember" + i, 10 + i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void fetchJoinCountTest() throws Exception {
+        // when
+        SqlCapture.clear();
+        Page<Member> page = supportTestRepository.membersWithTeam("supportMember", PageRequest.of(0, 4));
+
+        // then : 카운트 쿼리엔 fetch join 컬럼, order by가 없고 to-one 조인이라 distinct도 필요 없다.
+        String countSql = lastStatement();
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(page.getContent()).hasSize(4);
+        assertThat(countSql).contains("count(member0_.member_id)").doesNotContain("distinct", "team1_.name", "order by");
+    }
+
+    @Test
+    public void collectionJoinCountTest() throws Exception {
+        // when : 팀당 회원 3명이 조인되지만 팀 수를 센다.
+        SqlCapture.clear();
+        Page<Team> page = supportTestRepository.teamsWithMembers("supportTeam", 10, PageRequest.of(0, 1));
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(lastStatement()).contains("count(distinct team0_.team_id)");
+    }
+
+    @Test
+    public void groupByCountTest() throws Exception {
+        // when
+        SqlCapture.clear();
+        Page<Tuple> page = supportTestRepository.countByTeam("supportTeam", PageRequest.of(0, 1));
+
+        // then : 그룹(팀) 수
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(lastStatement()).contains("count(distinct team1_.name)");
+    }
+
+    @Test
+    public void nullGroupCountTest() throws Exception {
+        // given : 팀 없는 회원
+        em.persist(new Member("supportMember6", 16));
+        em.flush();
+        em.clear();
+
+        // when
+        Page<Tuple> page = supportTestRepository.countByTeamName("supportMember", PageRequest.of(0, 1));
+
+        // then : teamA, teamB, null 그룹
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(CountStrategy.estimated(2).count(countQueryByTeamName())).isEqualTo(3); // null 그룹 row도 있는 것으로 확인
+        assertThat(CountStrategy.estimated(3).count(countQueryByTeamName())).isEqualTo(3);
+    }
+
+    @Test
+    public void distinctProjectionCountTest() throws Exception {
+        // given : supportMember0~5 (나이 10~15)에 나이가 같은 회원 2명 추가, 6은 0과 팀까지 같다.
+        Team teamA = em.createQuery("select t from Team t where t.name = 'supportTeamA'", Team.class).getSingleResult();
+        em.persist(new Member("supportMember6", 10, teamA));
+        em.persist(new Member("supportMember7", 11));
+        em.flush();
+        em.clear();
+
+        // when
+        SqlCapture.clear();
+        Page<Integer> ages = supportTestRepository.distinctAges("supportMember", PageRequest.of(0, 4));
+        String countSql = lastStatement();
+        Page<Tuple> ageAndTeam = supportTestRepository.distinctAgeAndTeam("supportMember", PageRequest.of(0, 4));
+
+        // then : 회원 수(8)가 아니라 나이 수(6), (나이, 팀) 조합 수(7)
+        assertThat(ages.getTotalElements()).isEqualTo(6);
+        assertThat(countSql).contains("count(distinct member0_.age)");
+        assertThat(ageAndTeam.getTotalElements()).isEqualTo(7);
+    }
+
+    @Test
+    public void estimatedDeepPageTest() throws Exception {
+        // when : 6명, threshold 2 -> 추정 전체 개수 3
+        Page<Member> first = supportTestRepository.membersEstimated("supportMember", 2, PageRequest.of(0, 2));
+        Page<Member> deep = supportTestRepository.membersEstimated("supportMember", 2, PageRequest.of(1, 2));
+
+        // then : 추정값보다 뒤의 꽉 찬 페이지도 마지막 페이지가 되지 않는다.
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(deep.getContent()).hasSize(2);
+        assertThat(deep.getTotalElements()).isEqualTo(5);
+        assertThat(deep.hasNext()).isTrue();
+        assertThat(deep.isLast()).isFalse();
+    }
+
+    @Test
+    public void noneCountTest() throws Exception {
+        // when
+        SqlCapture.clear();
+        Page<Member> first = supportTestRepository.membersWithoutCount("supportMember", PageRequest.of(0, 4));
+        Page<Member> last = supportTestRepository.membersWithoutCount("supportMember", PageRequest.of(1, 4));
+
+        // then : 카운트 쿼리 없이 다음 페이지 여부만 안다.
+        assertThat(SqlCapture.statements()).hasSize(2).noneMatch(sql -> sql.contains("count("));
+        assertThat(first.getContent()).hasSize(4);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).hasSize(2);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void sliceTest() throws Exception {
+        // when
+        SqlCapture.clear();
+        Slice<Member> first = supportTestRepository.membersSlice("supportMember", PageRequest.of(0, 4, Sort.by("age")));
+        Slice<Member> last = supportTestRepository.membersSlice("supportMember", PageRequest.of(1, 4, Sort.by("age")));
+        Slice<Member> exact = supportTestRepository.membersSlice("supportMember", PageRequest.of(1, 3, Sort.by("age")));
+
+        // then : 페이지당 쿼리 한 번, 카운트 쿼리 없음
+        assertThat(SqlCapture.statements()).hasSize(3).noneMatch(sql -> sql.contains("count("));
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("supportMember0", "supportMember1", "supportMember2", "supportMember3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting("username").containsExactly("supportMember4", "supportMember5");
+        assertThat(last.hasNext()).isFalse();
+        assertThat(exact.getContent()).hasSize(3);
+        assertThat(exact.hasNext()).isFalse();
+    }
+
+    @Test
+    public void cachedCountTest() throws Exception {
+        // when
+        supportTestRepository.membersCached("supportMember", PageRequest.of(0, 4));
+        SqlCapture.clear();
+        Page<Member> page = supportTestRepository.membersCached("supportMember", PageRequest.of(0, 4));
+
+        // then : 두 번째 호출은 카운트 쿼리 생략
+        List<String> countSql = SqlCapture.statements().stream()
+                .filter(sql -> sql.contains("count("))
+                .collect(Collectors.toList());
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(countSql).isEmpty();
+    }
+
+    @Test
+    public void cachedNoneCountTest() throws Exception {
+        // when
+        SqlCapture.clear();
+        Page<Member> page = supportTestRepository.membersCachedWithoutCount("supportMember", PageRequest.of(0, 4));
+
+        // then : 캐시로 감싸도 none이다.
+        assertThat(SqlCapture.statements()).hasSize(1).noneMatch(sql -> sql.contains("count("));
+        assertThat(page.getContent()).hasSize(4);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    private CountQuery countQueryByTeamName() {
+        return CountQuery.of(em, queryFactory, queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith("supportMember"))
+                .groupBy(team.name));
+    }
+
+    private String lastStatement() {
+        List<String> statements = SqlCapture.statements();
+        return statements.get(statements.size() - 1);
+    }
+}
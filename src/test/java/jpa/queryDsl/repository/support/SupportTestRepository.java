@@ -0,0 +1,109 @@
+package jpa.queryDsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static jpa.queryDsl.entity.QTeam.*;
+
+/**
+ * Querydsl4RepositorySupport 카운트 쿼리 테스트용 레포지토리
+ */
+@Repository
+public class SupportTestRepository extends Querydsl4RepositorySupport {
+
+    private final CountCache<String> countCache = new CountCache<>(Duration.ofMinutes(1), 100);
+
+    public SupportTestRepository() {
+        super(Member.class);
+    }
+
+    // to-one fetch join
+    public Page<Member> membersWithTeam(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.username.startsWith(usernamePrefix)));
+    }
+
+    // 컬렉션 조인 -> 팀 row가 회원 수만큼 늘어난다.
+    public Page<Team> teamsWithMembers(String teamPrefix, int ageGoe, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(team).distinct()
+                .join(team.members, member)
+                .where(team.name.startsWith(teamPrefix), member.age.goe(ageGoe)));
+    }
+
+    public Page<Tuple> countByTeam(String teamPrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith(teamPrefix))
+                .groupBy(team.name));
+    }
+
+    // 팀 없는 회원은 null 그룹
+    public Page<Tuple> countByTeamName(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .select(team.name, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith(usernamePrefix))
+                .groupBy(team.name));
+    }
+
+    // 나이가 겹치는 회원이 있어도 나이 수를 센다.
+    public Page<Integer> distinctAges(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .select(member.age).distinct()
+                .from(member)
+                .where(member.username.startsWith(usernamePrefix)));
+    }
+
+    public Page<Tuple> distinctAgeAndTeam(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .select(member.age, team.name).distinct()
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith(usernamePrefix)));
+    }
+
+    public Page<Member> membersWithoutCount(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .where(member.username.startsWith(usernamePrefix)), CountStrategy.none());
+    }
+
+    public Page<Member> membersCachedWithoutCount(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .where(member.username.startsWith(usernamePrefix)), CountStrategy.cached(countCache, CountStrategy.none()));
+    }
+
+    public Slice<Member> membersSlice(String usernamePrefix, Pageable pageable) {
+        return applySlicing(pageable, query -> query
+                .selectFrom(member)
+                .where(member.username.startsWith(usernamePrefix)));
+    }
+
+    public Page<Member> membersEstimated(String usernamePrefix, long threshold, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .where(member.username.startsWith(usernamePrefix))
+                .orderBy(member.id.asc()), CountStrategy.estimated(threshold));
+    }
+
+    public Page<Member> membersCached(String usernamePrefix, Pageable pageable) {
+        return applyPagination(pageable, query -> query
+                .selectFrom(member)
+                .where(member.username.startsWith(usernamePrefix)), CountStrategy.cached(countCache));
+    }
+}
@@ -0,0 +1,121 @@
+package jpa.queryDsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.dto.TeamStatsMismatch;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// chunk마다 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+@SpringBootTest
+class MemberBulkServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MemberBulkService memberBulkService;
+    @Autowired TeamStatsService teamStatsService;
+
+    private Long teamId;
+
+    @BeforeEach
+    public void before() {
+        ReflectionTestUtils.setField(memberBulkService, "chunkSize", 10);
+        teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("bulkTeam");
+            em.persist(team);
+            for (int i = 0; i < 25; i++) {
+                em.persist(new Member("bulkMember", i, team));
+            }
+            return team.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        ReflectionTestUtils.setField(memberBulkService, "chunkSize", 1000);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.team.id.eq(teamId)).execute();
+            em.createNativeQuery("delete from team_stats where team_id = ?").setParameter(1, teamId).executeUpdate();
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void bulkUpdateTest() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            // given : 바깥 (읽기 전용) 트랜잭션 영속성 컨텍스트에 올라온 회원
+            Member loaded = queryFactory.selectFrom(member)
+                    .where(member.team.id.eq(teamId), member.age.eq(0))
+                    .fetchOne();
+            List<BulkResult> progress = new ArrayList<>();
+
+            // when
+            BulkResult result = memberBulkService.update(
+                    member.team.name.eq("bulkTeam"),
+                    update -> update.set(member.age, member.age.add(100)),
+                    progress::add);
+
+            // then
+            assertThat(result.getRows()).isEqualTo(25);
+            assertThat(result.getChunks()).isEqualTo(3);
+            assertThat(progress).extracting(BulkResult::getRows).containsExactly(10L, 20L, 25L);
+            assertThat(em.contains(loaded)).as("바깥 영속성 컨텍스트에서 빠짐").isFalse();
+            assertThat(em.find(Member.class, loaded.getId()).getAge()).isEqualTo(100);
+        });
+        assertThat(mismatches()).isEmpty();
+    }
+
+    @Test
+    public void readWriteTransactionTest() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // given : 바깥 읽기/쓰기 트랜잭션에서 수정한 회원 (flush 하면 chunk가 이 락을 기다린다.)
+            queryFactory.selectFrom(member).where(member.team.id.eq(teamId), member.age.eq(0)).fetchOne().setAge(50);
+
+            // when, then : chunk를 시작하지 않고 바로 실패
+            assertThatThrownBy(() -> memberBulkService.update(member.team.id.eq(teamId),
+                    update -> update.set(member.age, member.age.add(100))))
+                    .isInstanceOf(IllegalStateException.class);
+            status.setRollbackOnly();
+        });
+        Long updated = queryFactory.select(member.count()).from(member)
+                .where(member.team.id.eq(teamId), member.age.goe(100)).fetchOne();
+        assertThat(updated).isZero();
+    }
+
+    @Test
+    public void bulkDeleteTest() throws Exception {
+        // when
+        BulkResult result = memberBulkService.delete(member.team.id.eq(teamId).and(member.age.lt(15)));
+
+        // then
+        Long count = queryFactory.select(member.count()).from(member).where(member.team.id.eq(teamId)).fetchOne();
+        assertThat(result.getRows()).isEqualTo(15);
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(count).isEqualTo(10);
+        assertThat(mismatches()).isEmpty();
+    }
+
+    private List<TeamStatsMismatch> mismatches() {
+        List<TeamStatsMismatch> mismatches = new ArrayList<>(teamStatsService.check());
+        mismatches.removeIf(mismatch -> !mismatch.getTeamId().equals(teamId));
+        return mismatches;
+    }
+}
@@ -0,0 +1,45 @@
+package jpa.queryDsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.stream.IntStream;
+
+import static jpa.queryDsl.entity.QMember.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberImportServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired MemberImportService memberImportService;
+
+    @Test
+    public void importTest() throws Exception {
+        // given
+        Team team = new Team("importTeam");
+        em.persist(team);
+
+        // when
+        ImportResult result = memberImportService.importMembers(IntStream.range(0, 1234)
+                .mapToObj(i -> new Member("importMember", i % 100, team)));
+
+        // then
+        Long count = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.username.eq("importMember"), member.team.name.eq("importTeam"))
+                .fetchOne();
+        assertThat(result.getRows()).isEqualTo(1234);
+        assertThat(count).isEqualTo(1234);
+        assertThat(em.contains(team)).as("flush 후 clear").isFalse();
+    }
+}
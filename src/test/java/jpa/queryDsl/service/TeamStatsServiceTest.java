@@ -0,0 +1,215 @@
+package jpa.queryDsl.service;
+
+import jpa.queryDsl.dto.TeamStatsDto;
+import jpa.queryDsl.dto.TeamStatsMismatch;
+import jpa.queryDsl.entity.Member;
+import jpa.queryDsl.entity.Team;
+import jpa.queryDsl.entity.TeamStats;
+import jpa.queryDsl.repository.TeamStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 리스너가 커밋 직전에 반영하므로 트랜잭션을 실제로 커밋하고 확인한다.
+@SpringBootTest
+class TeamStatsServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired TeamStatsService teamStatsService;
+    @Autowired TeamStatsRepository teamStatsRepository;
+
+    private final List<Long> teamIds = new ArrayList<>();
+
+    @AfterEach
+    public void cleanUp() {
+        inTransaction(() -> {
+            em.createQuery("delete from Member m where m.team.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+            em.createQuery("delete from Team t where t.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+            em.createNativeQuery("delete from team_stats where team_id in (:teamIds)").setParameter("teamIds", teamIds).executeUpdate();
+        });
+    }
+
+    @Test
+    public void incrementalTest() throws Exception {
+        // given
+        Long[] ids = inTransaction(() -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("statsMember1", 10, teamA));
+            em.persist(new Member("statsMember2", 20, teamA));
+            Member member3 = new Member("statsMember3", 30, teamA);
+            em.persist(member3);
+            em.persist(new Member("statsMember4", 40, teamB));
+            return new Long[]{teamA.getId(), teamB.getId(), member3.getId()};
+        });
+        teamIds.add(ids[0]);
+        teamIds.add(ids[1]);
+        assertStats(ids[0], 3, 60, 10, 30);
+        assertStats(ids[1], 1, 40, 40, 40);
+
+        // when : 팀 변경(최대값이 빠짐) + 나이 변경
+        inTransaction(() -> {
+            Member member3 = em.find(Member.class, ids[2]);
+            member3.changTeam(em.find(Team.class, ids[1]));
+            member3.setAge(50);
+            return null;
+        });
+
+        // then
+        assertStats(ids[0], 2, 30, 10, 20);
+        assertStats(ids[1], 2, 90, 40, 50);
+
+        // when : 삭제
+        inTransaction(() -> {
+            em.remove(em.find(Member.class, ids[2]));
+            return null;
+        });
+
+        // then
+        assertStats(ids[1], 1, 40, 40, 40);
+        assertThat(mismatches()).isEmpty();
+    }
+
+    @Test
+    public void rollbackTest() throws Exception {
+        // given
+        Long teamId = inTransaction(() -> {
+            Team team = new Team("statsRollbackTeam");
+            em.persist(team);
+            em.persist(new Member("statsMember", 10, team));
+            return team.getId();
+        });
+        teamIds.add(teamId);
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(new Member("statsMember", 99, em.find(Team.class, teamId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertStats(teamId, 1, 10, 10, 10);
+    }
+
+    @Test
+    public void rebuildTest() throws Exception {
+        // given : 벌크 연산은 리스너를 거치지 않는다.
+        Long teamId = inTransaction(() -> {
+            Team team = new Team("statsBulkTeam");
+            em.persist(team);
+            em.persist(new Member("statsMember", 10, team));
+            em.persist(new Member("statsMember", 20, team));
+            return team.getId();
+        });
+        teamIds.add(teamId);
+        inTransaction(() -> em.createQuery("update Member m set m.age = m.age + 1 where m.team.id = :teamId")
+                .setParameter("teamId", teamId)
+                .executeUpdate());
+        assertThat(mismatches()).extracting(TeamStatsMismatch::getTeamId).containsExactly(teamId);
+
+        // when
+        teamStatsService.rebuild(List.of(teamId));
+
+        // then
+        assertStats(teamId, 2, 32, 11, 21);
+        assertThat(mismatches()).isEmpty();
+    }
+
+    @Test
+    public void concurrentRebuildTest() throws Exception {
+        // given
+        Long teamId = inTransaction(() -> {
+            Team team = new Team("statsConcurrentTeam");
+            em.persist(team);
+            em.persist(new Member("statsMember", 10, team));
+            return team.getId();
+        });
+        teamIds.add(teamId);
+
+        // when : rebuild 트랜잭션이 끝나기 전에 다른 트랜잭션이 회원을 저장하고 커밋한다.
+        CompletableFuture<Void> concurrent = new CompletableFuture<>();
+        inTransaction(() -> {
+            teamStatsService.rebuild(List.of(teamId));
+            concurrent.completeAsync(() -> {
+                inTransaction(() -> em.persist(new Member("statsMember", 20, em.find(Team.class, teamId))));
+                return null;
+            });
+            sleep(200); // 증분 update가 rebuild의 행 락을 기다리게
+        });
+        concurrent.get(5, TimeUnit.SECONDS);
+
+        // then : 증분이 사라지지 않는다.
+        assertStats(teamId, 2, 30, 10, 20);
+        assertThat(mismatches()).isEmpty();
+    }
+
+    @Test
+    public void fillMissingTest() throws Exception {
+        // given : 통계 행이 없는 팀 (기능 도입 전에 만들어진 팀)
+        Long teamId = inTransaction(() -> {
+            Team team = new Team("statsMissingTeam");
+            em.persist(team);
+            em.persist(new Member("statsMember", 10, team));
+            return team.getId();
+        });
+        teamIds.add(teamId);
+        inTransaction(() -> em.createNativeQuery("delete from team_stats where team_id = ?").setParameter(1, teamId).executeUpdate());
+
+        // when : 행이 없어도 회원 저장은 실패하지 않고, 시작할 때처럼 빈 행을 채운다.
+        inTransaction(() -> em.persist(new Member("statsMember", 20, em.find(Team.class, teamId))));
+        int filled = teamStatsService.fillMissing();
+
+        // then
+        assertThat(filled).isEqualTo(1);
+        assertStats(teamId, 2, 30, 10, 20);
+        assertThat(teamStatsRepository.findAll()).extracting(TeamStatsDto::getTeamId).contains(teamId);
+    }
+
+    private void assertStats(Long teamId, long count, long sum, Integer min, Integer max) {
+        TeamStats stats = inTransaction(() -> em.find(TeamStats.class, teamId));
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(sum);
+        assertThat(stats.getAgeMin()).isEqualTo(min);
+        assertThat(stats.getAgeMax()).isEqualTo(max);
+    }
+
+    // 다른 테스트 데이터는 제외하고 이 테스트에서 만든 팀만
+    private List<TeamStatsMismatch> mismatches() {
+        return teamStatsService.check().stream()
+                .filter(mismatch -> teamIds.contains(mismatch.getTeamId()))
+                .collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+}
@@ -0,0 +1,34 @@
+package jpa.queryDsl.support;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 호출 한 번에 실행되는 SQL 개수 검증 (N+1 감지용)
+ * 예산을 넘으면 실행된 SQL 목록과 함께 테스트 실패
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T assertMaxStatements(int budget, Supplier<T> call) {
+        SqlCapture.clear();
+        T result = call.get();
+        List<String> statements = SqlCapture.statements();
+        assertThat(statements)
+                .as("SQL budget %d exceeded, executed %d statements:%n%s",
+                        budget, statements.size(), String.join(System.lineSeparator(), statements))
+                .hasSizeLessThanOrEqualTo(budget);
+        return result;
+    }
+
+    public static void assertMaxStatements(int budget, Runnable call) {
+        assertMaxStatements(budget, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
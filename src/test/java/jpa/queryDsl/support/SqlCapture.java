@@ -0,0 +1,43 @@
+package jpa.queryDsl.support;
+
+import jpa.queryDsl.metrics.QueryStatementCounter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 테스트용 SQL 수집기
+ * test application.yml의 hibernate.session_factory.statement_inspector로 등록되어 실행되는 모든 SQL을 현재 스레드 기준으로 모은다.
+ * 테스트가 끝나면 SqlCaptureExtension이 비운다. 비우지 않는 스레드(풀 스레드 등)도 최근 MAX_STATEMENTS개만 남긴다.
+ */
+public class SqlCapture extends QueryStatementCounter {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int MAX_STATEMENTS = 1000;
+
+    // use_sql_comments로 붙는 jpql 주석
+    private static final Pattern COMMENT = Pattern.compile("^/\\*.*?\\*/\\s*", Pattern.DOTALL);
+    private static final ThreadLocal<Deque<String>> STATEMENTS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public String inspect(String sql) {
+        Deque<String> statements = STATEMENTS.get();
+        if (statements.size() == MAX_STATEMENTS) {
+            statements.removeFirst();
+        }
+        statements.addLast(COMMENT.matcher(sql).replaceFirst(""));
+        return super.inspect(sql);
+    }
+
+    public static void clear() {
+        STATEMENTS.remove();
+    }
+
+    public static List<String> statements() {
+        return new ArrayList<>(STATEMENTS.get());
+    }
+}
@@ -0,0 +1,22 @@
+package jpa.queryDsl.support;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * SqlCapture를 쓰는 테스트 클래스에 @ExtendWith(SqlCaptureExtension.class)
+ * 테스트마다 앞뒤로 수집한 SQL을 비워서 이전 테스트의 SQL이 섞이거나 스레드에 계속 쌓이지 않게 한다.
+ */
+public class SqlCaptureExtension implements BeforeEachCallback, AfterEachCallback {
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        SqlCapture.clear();
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlCapture.clear();
+    }
+}